@@ -0,0 +1,35 @@
+package com.salah.times;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+// Fires for the alarms AdhanScheduler sets; the app doesn't have to be running
+public class AdhanReceiver extends BroadcastReceiver {
+    private static final String TAG = "AdhanReceiver";
+    public static final String ACTION_PRAYER_EVENT = "com.salah.times.PRAYER_EVENT";
+    public static final String EXTRA_PRAYER = "prayer";
+    public static final String EXTRA_KIND = "kind";
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        if (!ACTION_PRAYER_EVENT.equals(intent.getAction())) return;
+        String prayer = intent.getStringExtra(EXTRA_PRAYER);
+        if (prayer == null) return;
+
+        int kind = intent.getIntExtra(EXTRA_KIND, AdhanScheduler.KIND_ADHAN);
+        Log.d(TAG, "Prayer event " + kind + " for " + prayer);
+        if (kind == AdhanScheduler.KIND_REMINDER) {
+            NotificationManager.showReminderNotification(context, prayer, SettingsManager.getReminderMinutes());
+        } else if (kind == AdhanScheduler.KIND_IQAMA) {
+            NotificationManager.showIqamaNotification(context, prayer);
+        } else {
+            NotificationManager.showAdhanNotification(context, prayer);
+        }
+
+        // Drops the fired alarm from the plan and extends it to the new last day
+        PendingResult result = goAsync();
+        AdhanScheduler.reschedule().whenComplete((ignored, error) -> result.finish());
+    }
+}
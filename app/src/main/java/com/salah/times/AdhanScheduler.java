@@ -0,0 +1,216 @@
+package com.salah.times;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import android.util.Log;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Plans reminder, adhan and iqama alarms for the coming week from the stored timetable, so
+// they fire with the app closed. Each pass compares the plan with what AlarmManager already
+// holds and only sets or cancels the alarms that differ.
+public class AdhanScheduler {
+    private static final String TAG = "AdhanScheduler";
+    // Days after today that are planned. The window is today through today + DAYS_AHEAD, so
+    // when a weekday-only prayer fires, the pass it triggers already sets next week's one.
+    public static final int DAYS_AHEAD = 7;
+    public static final int KIND_REMINDER = 0;
+    public static final int KIND_ADHAN = 1;
+    public static final int KIND_IQAMA = 2;
+    private static final int KINDS = 3;
+    private static final int[] SLOTS = {
+        MonthTimetable.FAJR, MonthTimetable.DHUHR, MonthTimetable.ASR, MonthTimetable.MAGHRIB, MonthTimetable.ISHA
+    };
+
+    private static Context appContext;
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private static CompletableFuture<Void> queued;
+    // Request code -> trigger time of every alarm handed to AlarmManager, loaded once per process
+    private static volatile Map<Integer, Long> scheduled;
+    private static volatile int alarmCalls = 0;
+
+    public static void init(Context context) {
+        appContext = context.getApplicationContext();
+        SettingsManager.OnSettingChangedListener listener = (key, value) -> reschedule();
+        SettingsManager.addListener(SettingsManager.KEY_DEFAULT_CITY, listener);
+        SettingsManager.addListener("adan_enabled", listener);
+        SettingsManager.addListener("notifications_enabled", listener);
+        SettingsManager.addListener("reminder_minutes", listener);
+        for (String prayer : AlarmSchedule.PRAYERS) {
+            SettingsManager.addListener(DatabaseHelper.IQAMA_DELAY_PREFIX + prayer, listener);
+        }
+        reschedule();
+    }
+
+    // Queues a planning pass; calls arriving while one is queued share it
+    public static synchronized CompletableFuture<Void> reschedule() {
+        if (appContext == null) return CompletableFuture.completedFuture(null);
+        if (queued != null) return queued;
+        queued = CompletableFuture.runAsync(() -> {
+            synchronized (AdhanScheduler.class) {
+                queued = null;
+            }
+            run();
+        }, executor);
+        return queued;
+    }
+
+    // Alarms don't survive a reboot, so forget what was set before and plan from scratch
+    public static CompletableFuture<Void> rescheduleAll() {
+        if (appContext == null) return CompletableFuture.completedFuture(null);
+        return CompletableFuture.runAsync(() -> {
+            scheduled = new HashMap<>();
+            DatabaseHelper.getInstance(appContext).clearScheduledAlarms();
+            run();
+        }, executor);
+    }
+
+    private static void run() {
+        try {
+            apply(plan(System.currentTimeMillis()));
+        } catch (Exception e) {
+            Log.e(TAG, "Scheduling prayer alarms failed", e);
+        }
+    }
+
+    // One request code per day, prayer and kind; stable across passes so a changed time
+    // replaces the old alarm instead of adding one
+    static int requestCode(int epochDay, int prayer, int kind) {
+        return (epochDay * AlarmSchedule.PRAYERS.length + prayer) * KINDS + kind;
+    }
+
+    static Map<Integer, Long> plan(long now) {
+        Map<Integer, Long> planned = new HashMap<>();
+        City city = CitiesData.findCityByName(SettingsManager.getDefaultCity());
+        if (city == null) return planned;
+
+        boolean adhan = SettingsManager.getAdanEnabled();
+        boolean notifications = SettingsManager.getNotificationsEnabled();
+        int reminder = SettingsManager.getReminderMinutes();
+        int[] iqama = new int[AlarmSchedule.PRAYERS.length];
+        for (int i = 0; i < iqama.length; i++) {
+            iqama[i] = SettingsManager.getIqamaDelay(AlarmSchedule.PRAYERS[i]);
+        }
+
+        Calendar day = Calendar.getInstance();
+        day.set(Calendar.HOUR_OF_DAY, 0);
+        day.set(Calendar.MINUTE, 0);
+        day.set(Calendar.SECOND, 0);
+        day.set(Calendar.MILLISECOND, 0);
+        int today = EpochDays.of(day);
+        short[] stored = StorageManager.loadRange(city, today, today + DAYS_AHEAD, null);
+
+        for (int d = 0; d <= DAYS_AHEAD; d++) {
+            int weekday = AlarmSchedule.dayIndex(day);
+            for (int prayer = 0; prayer < SLOTS.length; prayer++) {
+                int minutes = stored[d * MonthTimetable.SLOTS + SLOTS[prayer]];
+                if (minutes == MonthTimetable.UNKNOWN) continue;
+                if (!AlarmSchedule.isEnabled(AlarmSchedule.PRAYERS[prayer], weekday)) continue;
+
+                Calendar event = (Calendar) day.clone();
+                event.set(Calendar.HOUR_OF_DAY, minutes / 60);
+                event.set(Calendar.MINUTE, minutes % 60);
+                long time = event.getTimeInMillis();
+                if (adhan) {
+                    put(planned, requestCode(today + d, prayer, KIND_ADHAN), time, now);
+                }
+                if (notifications && reminder > 0) {
+                    put(planned, requestCode(today + d, prayer, KIND_REMINDER), time - reminder * 60 * 1000L, now);
+                }
+                if (notifications && iqama[prayer] > 0) {
+                    put(planned, requestCode(today + d, prayer, KIND_IQAMA), time + iqama[prayer] * 60 * 1000L, now);
+                }
+            }
+            day.add(Calendar.DAY_OF_MONTH, 1);
+        }
+        return planned;
+    }
+
+    private static void put(Map<Integer, Long> planned, int code, long time, long now) {
+        if (time > now) planned.put(code, time);
+    }
+
+    private static void apply(Map<Integer, Long> planned) {
+        DatabaseHelper db = DatabaseHelper.getInstance(appContext);
+        AlarmManager alarmManager = appContext.getSystemService(AlarmManager.class);
+        if (scheduled == null) {
+            scheduled = loadScheduled(db);
+        }
+
+        Map<Integer, Long> changed = new HashMap<>();
+        java.util.List<Integer> removed = new java.util.ArrayList<>();
+        Iterator<Map.Entry<Integer, Long>> it = scheduled.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, Long> entry = it.next();
+            if (planned.containsKey(entry.getKey())) continue;
+            // Already fired, or no longer wanted
+            PendingIntent intent = pendingIntent(entry.getKey(), PendingIntent.FLAG_NO_CREATE);
+            if (intent != null) {
+                alarmManager.cancel(intent);
+                intent.cancel();
+                alarmCalls++;
+            }
+            removed.add(entry.getKey());
+            it.remove();
+        }
+        for (Map.Entry<Integer, Long> entry : planned.entrySet()) {
+            Long current = scheduled.get(entry.getKey());
+            if (current != null && current.longValue() == entry.getValue().longValue()) continue;
+            set(alarmManager, entry.getKey(), entry.getValue());
+            scheduled.put(entry.getKey(), entry.getValue());
+            changed.put(entry.getKey(), entry.getValue());
+        }
+
+        if (!changed.isEmpty() || !removed.isEmpty()) {
+            db.updateScheduledAlarms(changed, removed);
+            Log.d(TAG, "Alarms: " + changed.size() + " set, " + removed.size() + " removed, " + scheduled.size() + " pending");
+        }
+    }
+
+    // The table says what was set; an alarm whose PendingIntent is gone (the app was
+    // force-stopped) is left out so the next pass sets it again
+    private static Map<Integer, Long> loadScheduled(DatabaseHelper db) {
+        Map<Integer, Long> stored = db.getScheduledAlarms();
+        stored.keySet().removeIf(code -> pendingIntent(code, PendingIntent.FLAG_NO_CREATE) == null);
+        return stored;
+    }
+
+    private static void set(AlarmManager alarmManager, int code, long time) {
+        PendingIntent intent = pendingIntent(code, PendingIntent.FLAG_UPDATE_CURRENT);
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.S || alarmManager.canScheduleExactAlarms()) {
+            alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, time, intent);
+        } else {
+            // Exact alarm access revoked in system settings; the system may delay these a few minutes
+            alarmManager.setAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, time, intent);
+        }
+        alarmCalls++;
+    }
+
+    private static PendingIntent pendingIntent(int code, int flags) {
+        int kind = code % KINDS;
+        int prayer = (code / KINDS) % AlarmSchedule.PRAYERS.length;
+        Intent intent = new Intent(appContext, AdhanReceiver.class)
+            .setAction(AdhanReceiver.ACTION_PRAYER_EVENT)
+            .putExtra(AdhanReceiver.EXTRA_PRAYER, AlarmSchedule.PRAYERS[prayer])
+            .putExtra(AdhanReceiver.EXTRA_KIND, kind);
+        return PendingIntent.getBroadcast(appContext, code, intent, flags | PendingIntent.FLAG_IMMUTABLE);
+    }
+
+    public static int getScheduledCount() {
+        Map<Integer, Long> current = scheduled;
+        return current != null ? current.size() : 0;
+    }
+
+    // set and cancel calls made on AlarmManager since the process started
+    public static int getAlarmCalls() {
+        return alarmCalls;
+    }
+}
@@ -0,0 +1,115 @@
+package com.salah.times;
+
+import android.content.Context;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Map;
+
+public class AlarmSchedule {
+    public static final String[] PRAYERS = {"fajr", "dhuhr", "asr", "maghrib", "isha"};
+    // Bit i of a mask is DAYS[i]
+    public static final String[] DAYS = {"monday", "tuesday", "wednesday", "thursday", "friday", "saturday", "sunday"};
+    public static final int ALL_DAYS = (1 << 7) - 1;
+
+    private static Context appContext;
+    private static int[] masks;
+
+    public static void init(Context context) {
+        appContext = context.getApplicationContext();
+    }
+
+    // Every mask is read in one query on first use and kept in memory afterwards
+    private static synchronized int[] masks() {
+        if (masks == null) {
+            Map<String, Integer> stored = DatabaseHelper.getInstance(appContext).getAlarmDayMasks();
+            int[] loaded = new int[PRAYERS.length];
+            for (int i = 0; i < PRAYERS.length; i++) {
+                Integer mask = stored.get(PRAYERS[i]);
+                loaded[i] = mask != null ? mask & ALL_DAYS : ALL_DAYS;
+            }
+            masks = loaded;
+        }
+        return masks;
+    }
+
+    public static int getMask(String prayer) {
+        int index = prayerIndex(prayer);
+        return index >= 0 ? masks()[index] : ALL_DAYS;
+    }
+
+    public static boolean isEnabled(String prayer, int day) {
+        return (getMask(prayer) & (1 << day)) != 0;
+    }
+
+    public static boolean isEnabled(String prayer, Calendar date) {
+        return isEnabled(prayer, dayIndex(date));
+    }
+
+    public static boolean isAnyDayEnabled(String prayer) {
+        return getMask(prayer) != 0;
+    }
+
+    public static boolean isAllEnabled() {
+        for (int mask : masks()) {
+            if (mask != ALL_DAYS) return false;
+        }
+        return true;
+    }
+
+    // The bit flips under the mask cache's lock, so toggles from the UI and a listener can't
+    // overwrite each other
+    public static void setEnabled(String prayer, int day, boolean enabled) {
+        update(prayer, enabled ? 1 << day : 0, enabled ? 0 : 1 << day);
+    }
+
+    public static void setMask(String prayer, int mask) {
+        update(prayer, mask, ALL_DAYS);
+    }
+
+    // Clears the clear bits, then sets the set bits
+    private static void update(String prayer, int set, int clear) {
+        int index = prayerIndex(prayer);
+        if (index < 0) return;
+        Map<String, Integer> changed = new HashMap<>();
+        synchronized (AlarmSchedule.class) {
+            int[] current = masks();
+            current[index] = ((current[index] & ~clear) | set) & ALL_DAYS;
+            changed.put(PRAYERS[index], current[index]);
+            // Queued under the lock so the rows are written in the order the masks changed
+            DatabaseHelper.getInstance(appContext).setAlarmDayMasks(changed);
+        }
+        AdhanScheduler.reschedule();
+    }
+
+    public static void setAll(boolean enabled) {
+        Map<String, Integer> changed = new HashMap<>();
+        synchronized (AlarmSchedule.class) {
+            int[] current = masks();
+            for (int i = 0; i < PRAYERS.length; i++) {
+                current[i] = enabled ? ALL_DAYS : 0;
+                changed.put(PRAYERS[i], current[i]);
+            }
+            DatabaseHelper.getInstance(appContext).setAlarmDayMasks(changed);
+        }
+        AdhanScheduler.reschedule();
+    }
+
+    public static int prayerIndex(String prayer) {
+        for (int i = 0; i < PRAYERS.length; i++) {
+            if (PRAYERS[i].equalsIgnoreCase(prayer)) return i;
+        }
+        return -1;
+    }
+
+    public static int dayIndex(String day) {
+        for (int i = 0; i < DAYS.length; i++) {
+            if (DAYS[i].equals(day)) return i;
+        }
+        return -1;
+    }
+
+    // Calendar counts from Sunday = 1, the masks from Monday = 0
+    public static int dayIndex(Calendar date) {
+        return (date.get(Calendar.DAY_OF_WEEK) + 5) % 7;
+    }
+}
@@ -8,8 +8,8 @@ import androidx.appcompat.app.AppCompatActivity;
 import com.google.android.material.switchmaterial.SwitchMaterial;
 
 public class AlarmSettingsActivity extends AppCompatActivity {
-    private String[] prayers = {"fajr", "dhuhr", "asr", "maghrib", "isha"};
-    private String[] days = {"monday", "tuesday", "wednesday", "thursday", "friday", "saturday", "sunday"};
+    private String[] prayers = AlarmSchedule.PRAYERS;
+    private String[] days = AlarmSchedule.DAYS;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -34,24 +34,13 @@ public class AlarmSettingsActivity extends AppCompatActivity {
         bulkSwitch.setChecked(areAllAlarmsEnabled());
         
         bulkSwitch.setOnCheckedChangeListener((buttonView, isChecked) -> {
-            for (String prayer : prayers) {
-                for (String day : days) {
-                    DatabaseHelper.getInstance(this).saveSetting("alarm_" + prayer + "_" + day, String.valueOf(isChecked));
-                }
-            }
+            AlarmSchedule.setAll(isChecked);
             updatePrayerAlarms();
         });
     }
     
     private boolean areAllAlarmsEnabled() {
-        for (String prayer : prayers) {
-            for (String day : days) {
-                if (!Boolean.parseBoolean(DatabaseHelper.getInstance(this).getSetting("alarm_" + prayer + "_" + day, "true"))) {
-                    return false;
-                }
-            }
-        }
-        return true;
+        return AlarmSchedule.isAllEnabled();
     }
     
     private void setupPrayerAlarms() {
@@ -79,19 +68,10 @@ public class AlarmSettingsActivity extends AppCompatActivity {
         daysSummary.setText(TranslationManager.tr("alarms.configure_days"));
         
         SwitchMaterial prayerSwitch = item.findViewById(R.id.prayer_switch);
-        boolean anyEnabled = false;
-        for (String day : days) {
-            if (Boolean.parseBoolean(DatabaseHelper.getInstance(this).getSetting("alarm_" + prayer + "_" + day, "true"))) {
-                anyEnabled = true;
-                break;
-            }
-        }
-        prayerSwitch.setChecked(anyEnabled);
+        prayerSwitch.setChecked(AlarmSchedule.isAnyDayEnabled(prayer));
         
         prayerSwitch.setOnCheckedChangeListener((buttonView, isChecked) -> {
-            for (String day : days) {
-                DatabaseHelper.getInstance(this).saveSetting("alarm_" + prayer + "_" + day, String.valueOf(isChecked));
-            }
+            AlarmSchedule.setMask(prayer, isChecked ? AlarmSchedule.ALL_DAYS : 0);
             updateDaysSummary(daysSummary, prayer);
             updateBulkSwitch();
         });
@@ -103,12 +83,7 @@ public class AlarmSettingsActivity extends AppCompatActivity {
     }
     
     private void updateDaysSummary(TextView daysSummary, String prayer) {
-        int enabledCount = 0;
-        for (String day : days) {
-            if (Boolean.parseBoolean(DatabaseHelper.getInstance(this).getSetting("alarm_" + prayer + "_" + day, "true"))) {
-                enabledCount++;
-            }
-        }
+        int enabledCount = Integer.bitCount(AlarmSchedule.getMask(prayer));
         
         if (enabledCount == 0) {
             daysSummary.setText(TranslationManager.tr("alarms.configure_days"));
@@ -124,11 +99,7 @@ public class AlarmSettingsActivity extends AppCompatActivity {
         bulkSwitch.setOnCheckedChangeListener(null);
         bulkSwitch.setChecked(areAllAlarmsEnabled());
         bulkSwitch.setOnCheckedChangeListener((buttonView, isChecked) -> {
-            for (String prayer : prayers) {
-                for (String day : days) {
-                    DatabaseHelper.getInstance(this).saveSetting("alarm_" + prayer + "_" + day, String.valueOf(isChecked));
-                }
-            }
+            AlarmSchedule.setAll(isChecked);
             updatePrayerAlarms();
         });
     }
@@ -136,7 +107,7 @@ public class AlarmSettingsActivity extends AppCompatActivity {
     private void showDaySelectionDialog(String prayer, SwitchMaterial prayerSwitch, TextView daysSummary) {
         boolean[] checkedDays = new boolean[days.length];
         for (int i = 0; i < days.length; i++) {
-            checkedDays[i] = Boolean.parseBoolean(DatabaseHelper.getInstance(this).getSetting("alarm_" + prayer + "_" + days[i], "true"));
+            checkedDays[i] = AlarmSchedule.isEnabled(prayer, i);
         }
         
         String[] dayNames = new String[days.length];
@@ -147,17 +118,10 @@ public class AlarmSettingsActivity extends AppCompatActivity {
         new android.app.AlertDialog.Builder(this)
             .setTitle(TranslationManager.tr("prayers." + prayer) + " - " + TranslationManager.tr("alarms.select_days"))
             .setMultiChoiceItems(dayNames, checkedDays, (dialog, which, isChecked) -> {
-                DatabaseHelper.getInstance(this).saveSetting("alarm_" + prayer + "_" + days[which], String.valueOf(isChecked));
+                AlarmSchedule.setEnabled(prayer, which, isChecked);
             })
             .setPositiveButton(TranslationManager.tr("ok"), (dialog, which) -> {
-                boolean anyEnabled = false;
-                for (String day : days) {
-                    if (Boolean.parseBoolean(DatabaseHelper.getInstance(this).getSetting("alarm_" + prayer + "_" + day, "true"))) {
-                        anyEnabled = true;
-                        break;
-                    }
-                }
-                prayerSwitch.setChecked(anyEnabled);
+                prayerSwitch.setChecked(AlarmSchedule.isAnyDayEnabled(prayer));
                 updateDaysSummary(daysSummary, prayer);
                 updateBulkSwitch();
             })
@@ -3,13 +3,22 @@ package com.salah.times;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
-import org.json.JSONObject;
 
 public class BootReceiver extends BroadcastReceiver {
     @Override
     public void onReceive(Context context, Intent intent) {
-        if (Intent.ACTION_BOOT_COMPLETED.equals(intent.getAction())) {
-            android.util.Log.d("BootReceiver", "Boot completed");
+        String action = intent.getAction();
+        // SalahApplication.onCreate has already run AdhanScheduler.init by now
+        if (Intent.ACTION_BOOT_COMPLETED.equals(action) || Intent.ACTION_MY_PACKAGE_REPLACED.equals(action)) {
+            android.util.Log.d("BootReceiver", "Rescheduling prayer alarms after " + action);
+            PendingResult result = goAsync();
+            AdhanScheduler.rescheduleAll().whenComplete((ignored, error) -> result.finish());
+        } else if (Intent.ACTION_TIME_CHANGED.equals(action) || Intent.ACTION_TIMEZONE_CHANGED.equals(action)) {
+            // Same request codes, new trigger times; only the moved alarms are set again
+            DayScheduleCache.invalidate();
+            PrayerTimeline.invalidate();
+            PendingResult result = goAsync();
+            AdhanScheduler.reschedule().whenComplete((ignored, error) -> result.finish());
         }
     }
 }
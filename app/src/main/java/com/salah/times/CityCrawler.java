@@ -0,0 +1,100 @@
+package com.salah.times;
+
+import android.util.Log;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CityCrawler {
+    private static final String TAG = "CityCrawler";
+
+    private final int maxConcurrency;
+    private final int burst;
+    private final double requestsPerSecond;
+    private final Map<String, TokenBucket> hostBuckets = new HashMap<>();
+
+    public interface CityFetcher {
+        String urlFor(City city);
+        void fetch(City city, String url) throws Exception;
+    }
+
+    public CityCrawler(int maxConcurrency, double requestsPerSecond, int burst) {
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.requestsPerSecond = requestsPerSecond;
+        this.burst = burst;
+    }
+
+    public List<CityResult> crawl(List<City> cities, CityFetcher fetcher) {
+        List<CityResult> results = new ArrayList<>();
+        if (cities.isEmpty()) return results;
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(maxConcurrency, cities.size()));
+        AtomicInteger done = new AtomicInteger();
+        List<CompletableFuture<CityResult>> futures = new ArrayList<>();
+
+        for (City city : cities) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                long start = System.currentTimeMillis();
+                try {
+                    String url = fetcher.urlFor(city);
+                    bucketFor(url).acquire();
+                    fetcher.fetch(city, url);
+                    long elapsed = System.currentTimeMillis() - start;
+                    Log.d(TAG, "✓ " + city.getNameEn() + " in " + elapsed + "ms (" + done.incrementAndGet() + "/" + cities.size() + ")");
+                    return new CityResult(city.getNameEn(), true, null, elapsed);
+                } catch (Exception e) {
+                    long elapsed = System.currentTimeMillis() - start;
+                    Log.w(TAG, "✗ " + city.getNameEn() + ": " + e.getMessage() + " (" + done.incrementAndGet() + "/" + cities.size() + ")");
+                    return new CityResult(city.getNameEn(), false, e.getMessage(), elapsed);
+                }
+            }, executor));
+        }
+
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+            for (CompletableFuture<CityResult> future : futures) {
+                results.add(future.join());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        return results;
+    }
+
+    private synchronized TokenBucket bucketFor(String url) {
+        String host;
+        try {
+            host = URI.create(url).getHost();
+        } catch (Exception e) {
+            host = "";
+        }
+        if (host == null) host = "";
+
+        TokenBucket bucket = hostBuckets.get(host);
+        if (bucket == null) {
+            bucket = new TokenBucket(burst, requestsPerSecond);
+            hostBuckets.put(host, bucket);
+        }
+        return bucket;
+    }
+
+    public static class CityResult {
+        public final String cityName;
+        public final boolean success;
+        public final String error;
+        public final long durationMs;
+
+        public CityResult(String cityName, boolean success, String error, long durationMs) {
+            this.cityName = cityName;
+            this.success = success;
+            this.error = error;
+            this.durationMs = durationMs;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.salah.times;
+
+public class CityPage {
+    private final MonthTimetable timetable;
+    private final String etag;
+    private final String lastModified;
+
+    private CityPage(MonthTimetable timetable, String etag, String lastModified) {
+        this.timetable = timetable;
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+
+    public static CityPage modified(MonthTimetable timetable, String etag, String lastModified) {
+        return new CityPage(timetable, etag, lastModified);
+    }
+
+    public static CityPage notModified(String etag, String lastModified) {
+        return new CityPage(null, etag, lastModified);
+    }
+
+    public MonthTimetable getTimetable() { return timetable; }
+    public String getEtag() { return etag; }
+    public String getLastModified() { return lastModified; }
+    public boolean isNotModified() { return timetable == null; }
+}
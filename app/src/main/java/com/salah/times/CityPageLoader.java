@@ -0,0 +1,178 @@
+package com.salah.times;
+
+import android.util.Log;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.jsoup.Jsoup;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+public class CityPageLoader {
+    private static final String TAG = "CityPageLoader";
+    private static final String BASE_URL = "https://www.yabiladi.com/prieres/details/";
+    private static final long RESULT_TTL_MS = 60 * 1000;
+
+    private static final Map<String, Entry> entries = new HashMap<>();
+    private static int sharedHits = 0;
+    private static int notModifiedCount = 0;
+
+    // One download and parse per city at a time; concurrent and recent callers share the result.
+    // Blocking, for callers already running off the main thread.
+    public static CityPage loadNow(City city) throws Exception {
+        return fetch(city, false);
+    }
+
+    // Sends the stored validators so an unchanged page comes back as 304 without a body
+    public static CityPage loadIfModifiedNow(City city) throws Exception {
+        return fetch(city, true);
+    }
+
+    private static CityPage fetch(City city, boolean conditional) throws Exception {
+        String key = keyFor(city, conditional);
+        Entry entry = null;
+        boolean owner = false;
+        synchronized (entries) {
+            if (conditional) entry = usable(keyFor(city, false));
+            if (entry == null) entry = usable(key);
+            if (entry != null) {
+                sharedHits++;
+                Log.d(TAG, "Sharing page for " + city.getNameEn() + " (" + sharedHits + " shared)");
+            } else {
+                entry = new Entry(new CompletableFuture<>());
+                entries.put(key, entry);
+                owner = true;
+            }
+        }
+        if (owner) {
+            // The first caller downloads on its own thread, so the crawler's pool stays the
+            // real bound on parallel requests; later callers wait on the shared future
+            try {
+                CityPage page = download(city, conditional);
+                synchronized (entries) {
+                    entry.completedAt = System.currentTimeMillis();
+                }
+                entry.future.complete(page);
+            } catch (Exception e) {
+                synchronized (entries) {
+                    if (entries.get(key) == entry) entries.remove(key);
+                }
+                entry.future.completeExceptionally(e);
+            }
+        }
+        return join(entry.future);
+    }
+
+    private static Entry usable(String key) {
+        Entry entry = entries.get(key);
+        return entry != null && entry.isUsable() ? entry : null;
+    }
+
+    private static CityPage join(CompletableFuture<CityPage> future) throws Exception {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            throw e;
+        }
+    }
+
+    private static String keyFor(City city, boolean conditional) {
+        return conditional ? city.getId() + ":conditional" : String.valueOf(city.getId());
+    }
+
+    public static String urlFor(City city) {
+        return BASE_URL + city.getId() + "/city.html";
+    }
+
+    public static void invalidate(City city) {
+        synchronized (entries) {
+            entries.remove(keyFor(city, false));
+            entries.remove(keyFor(city, true));
+        }
+    }
+
+    public static void clearCache() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public static int getSharedHits() {
+        synchronized (entries) {
+            return sharedHits;
+        }
+    }
+
+    public static int getNotModifiedCount() {
+        synchronized (entries) {
+            return notModifiedCount;
+        }
+    }
+
+    private static CityPage download(City city, boolean conditional) throws Exception {
+        String url = urlFor(city);
+        Log.d(TAG, "Fetching prayer times from: " + url);
+        Request.Builder builder = new Request.Builder()
+            .url(url)
+            .header("User-Agent", HttpClientManager.USER_AGENT);
+
+        String[] validators = conditional ? StorageManager.getPageValidators(city.getId()) : null;
+        if (validators != null) {
+            if (validators[0] != null) builder.header("If-None-Match", validators[0]);
+            if (validators[1] != null) builder.header("If-Modified-Since", validators[1]);
+        }
+
+        try (Response response = HttpClientManager.getClient().newCall(builder.build()).execute()) {
+            if (response.code() == 304 && validators != null) {
+                synchronized (entries) {
+                    notModifiedCount++;
+                }
+                Log.d(TAG, city.getNameEn() + " not modified");
+                return CityPage.notModified(validators[0], validators[1]);
+            }
+            if (!response.isSuccessful() || response.body() == null) {
+                throw new IOException("HTTP " + response.code() + " for " + url);
+            }
+            Log.d(TAG, city.getNameEn() + " served from " + (response.networkResponse() == null ? "cache" : "network"));
+            // body().string() would assume UTF-8 without a Content-Type charset, ignoring <meta charset>
+            MediaType type = response.body().contentType();
+            String html = TimetableExtractor.decode(response.body().bytes(), type != null ? type.charset() : null);
+            MonthTimetable timetable = MonthTimetable.fromRows(extractRows(html, url));
+            return CityPage.modified(timetable, response.header("ETag"), response.header("Last-Modified"));
+        }
+    }
+
+    private static List<TimetableRow> extractRows(String html, String url) {
+        long start = System.nanoTime();
+        List<TimetableRow> rows = TimetableExtractor.extract(html);
+        String method = "streaming";
+        if (rows.isEmpty()) {
+            // Fall back to the full DOM parser if the scanner found nothing
+            rows = TimetableExtractor.extract(Jsoup.parse(html, url));
+            method = "dom";
+        }
+        Log.d(TAG, "Extracted " + rows.size() + " rows (" + method + ") in " + (System.nanoTime() - start) / 1000 + "us");
+        return rows;
+    }
+
+    private static class Entry {
+        final CompletableFuture<CityPage> future;
+        long completedAt = 0;
+
+        Entry(CompletableFuture<CityPage> future) {
+            this.future = future;
+        }
+
+        boolean isUsable() {
+            if (!future.isDone()) return true;
+            if (future.isCompletedExceptionally()) return false;
+            return completedAt == 0 || System.currentTimeMillis() - completedAt < RESULT_TTL_MS;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.salah.times;
+
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.content.Context;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.core.app.NotificationCompat;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.ForegroundInfo;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.OutOfQuotaPolicy;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+import java.util.concurrent.TimeUnit;
+
+public class CitySyncWorker extends Worker {
+    private static final String TAG = "CitySyncWorker";
+    private static final String PERIODIC_WORK = "city_sync_periodic";
+    private static final String ONE_SHOT_WORK = "city_sync_now";
+    private static final String KEY_FORCE = "force";
+    private static final String CHANNEL_ID = "city_sync";
+    private static final int NOTIFICATION_ID = 1002;
+    private static final int MAX_RUN_ATTEMPTS = 5;
+
+    public CitySyncWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    // Daily check of the stored horizon; only cities running out of days get fetched
+    public static void schedulePeriodic(Context context) {
+        Constraints constraints = new Constraints.Builder()
+            .setRequiredNetworkType(NetworkType.CONNECTED)
+            .setRequiresBatteryNotLow(true)
+            .build();
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(CitySyncWorker.class, 24, TimeUnit.HOURS)
+            .setConstraints(constraints)
+            .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, 30, TimeUnit.MINUTES)
+            .build();
+        WorkManager.getInstance(context).enqueueUniquePeriodicWork(PERIODIC_WORK, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    // Refetches every city right away, for the "update all cities" button
+    public static void syncNow(Context context) {
+        Constraints constraints = new Constraints.Builder()
+            .setRequiredNetworkType(NetworkType.CONNECTED)
+            .build();
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(CitySyncWorker.class)
+            .setConstraints(constraints)
+            .setExpedited(OutOfQuotaPolicy.RUN_AS_NON_EXPEDITED_WORK_REQUEST)
+            .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, 30, TimeUnit.SECONDS)
+            .setInputData(new Data.Builder().putBoolean(KEY_FORCE, true).build())
+            .build();
+        WorkManager.getInstance(context).enqueueUniqueWork(ONE_SHOT_WORK, ExistingWorkPolicy.KEEP, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        boolean force = getInputData().getBoolean(KEY_FORCE, false);
+        try {
+            StorageManager.applyRetention();
+        } catch (Exception e) {
+            Log.w(TAG, "Retention pass failed", e);
+        }
+        try {
+            if (PrayerTimesService.syncCities(force)) {
+                return Result.success();
+            }
+            // Cities left in the refresh job get picked up again after the backoff
+            return getRunAttemptCount() < MAX_RUN_ATTEMPTS ? Result.retry() : Result.failure();
+        } catch (Exception e) {
+            Log.e(TAG, "City sync failed", e);
+            return getRunAttemptCount() < MAX_RUN_ATTEMPTS ? Result.retry() : Result.failure();
+        }
+    }
+
+    // Only used when expedited work runs as a foreground service (before Android 12)
+    @NonNull
+    @Override
+    public ForegroundInfo getForegroundInfo() {
+        Context context = getApplicationContext();
+        NotificationChannel channel = new NotificationChannel(
+            CHANNEL_ID,
+            "City updates",
+            android.app.NotificationManager.IMPORTANCE_LOW
+        );
+        android.app.NotificationManager manager = context.getSystemService(android.app.NotificationManager.class);
+        manager.createNotificationChannel(channel);
+
+        Notification notification = new NotificationCompat.Builder(context, CHANNEL_ID)
+            .setSmallIcon(android.R.drawable.stat_notify_sync)
+            .setContentTitle(TranslationManager.tr("missing_strings.updating_cities"))
+            .setOngoing(true)
+            .build();
+        return new ForegroundInfo(NOTIFICATION_ID, notification);
+    }
+}
@@ -0,0 +1,103 @@
+package com.salah.times;
+
+import android.content.Context;
+import android.util.Log;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+public class CrawlGuard {
+    private static final String TAG = "CrawlGuard";
+    private static final long LEASE_MS = 10 * 60 * 1000;
+    private static final String OWNER = UUID.randomUUID().toString();
+
+    private static Context appContext;
+    private static CompletableFuture<Boolean> running;
+    private static boolean runningForced;
+
+    public static void init(Context context) {
+        appContext = context.getApplicationContext();
+    }
+
+    // At most one crawl at a time: callers arriving while one runs in this process wait for
+    // its result, and a lease row in the database keeps other processes out. A forced crawl
+    // refetches every city, so it only joins another forced one; behind a regular crawl it
+    // waits for that to finish and then runs itself.
+    public static boolean run(boolean force, Supplier<Boolean> crawl) {
+        CompletableFuture<Boolean> mine = null;
+        while (mine == null) {
+            CompletableFuture<Boolean> current;
+            boolean currentForced;
+            synchronized (CrawlGuard.class) {
+                current = running;
+                currentForced = runningForced;
+                if (current == null) {
+                    mine = new CompletableFuture<>();
+                    running = mine;
+                    runningForced = force;
+                    break;
+                }
+            }
+
+            if (!force || currentForced) {
+                recordAbsorbed();
+                Log.d(TAG, "Crawl already running, joining it");
+                try {
+                    return current.join();
+                } catch (CompletionException e) {
+                    return false;
+                }
+            }
+            Log.d(TAG, "Forced crawl queued behind a running one");
+            try {
+                current.join();
+            } catch (CompletionException e) {
+                // Its outcome doesn't matter; ours starts once it is done
+            }
+        }
+
+        DatabaseHelper db = DatabaseHelper.getInstance(appContext);
+        try {
+            long now = System.currentTimeMillis();
+            if (!db.acquireCrawlLease(OWNER, now, now + LEASE_MS).join()) {
+                recordAbsorbed();
+                Log.d(TAG, "Crawl lease held elsewhere, skipping");
+                mine.complete(false);
+                return false;
+            }
+            try {
+                boolean result = crawl.get();
+                mine.complete(result);
+                return result;
+            } finally {
+                db.releaseCrawlLease(OWNER);
+            }
+        } catch (RuntimeException | Error e) {
+            // Errors too, or every caller that joined this crawl would wait forever
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            synchronized (CrawlGuard.class) {
+                running = null;
+            }
+        }
+    }
+
+    // Called as the crawl makes progress so a long run doesn't lose its lease
+    public static void renewLease() {
+        DatabaseHelper.getInstance(appContext).renewCrawlLease(OWNER, System.currentTimeMillis() + LEASE_MS);
+    }
+
+    public static synchronized int getAbsorbedTriggers() {
+        try {
+            return Integer.parseInt(DatabaseHelper.getInstance(appContext).getSetting("crawl_absorbed_triggers", "0"));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static synchronized void recordAbsorbed() {
+        DatabaseHelper.getInstance(appContext).saveSetting("crawl_absorbed_triggers", String.valueOf(getAbsorbedTriggers() + 1)).join();
+    }
+}
@@ -6,12 +6,33 @@ import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 import org.json.JSONObject;
+import java.util.concurrent.CompletableFuture;
 
 public class DatabaseHelper extends SQLiteOpenHelper {
     private static final String DATABASE_NAME = "salah_times.db";
-    private static final int DATABASE_VERSION = 2;
+    private static final int DATABASE_VERSION = 9;
     private static DatabaseHelper instance;
 
+    // Keys under which getAllSettings reports rows of the iqama_delays and prayer_alarms tables
+    public static final String IQAMA_DELAY_PREFIX = "iqama_delays:";
+    public static final String PRAYER_ALARM_PREFIX = "prayer_alarms:";
+    // last_result values in coverage besides a failure message
+    public static final String FETCH_OK = "ok";
+    public static final String FETCH_NOT_MODIFIED = "not_modified";
+
+    // Weekday mask per prayer, bit 0 = Monday, as AlarmSchedule keeps them
+    private static final String CREATE_ALARM_SCHEDULE = "CREATE TABLE alarm_schedule (prayer TEXT PRIMARY KEY, day_mask INTEGER NOT NULL DEFAULT " + AlarmSchedule.ALL_DAYS + ")";
+    // One row per city: the span of stored days and how the last fetch went
+    private static final String CREATE_COVERAGE = "CREATE TABLE coverage (city_id INTEGER PRIMARY KEY REFERENCES cities(id), first_day INTEGER, last_day INTEGER, "
+        + "last_fetch INTEGER, last_result TEXT)";
+    // Alarms currently handed to AlarmManager by AdhanScheduler, keyed by PendingIntent request code
+    private static final String CREATE_SCHEDULED_ALARMS = "CREATE TABLE scheduled_alarms (request_code INTEGER PRIMARY KEY, trigger_at INTEGER NOT NULL)";
+    private static final String CREATE_CITIES = "CREATE TABLE cities (id INTEGER PRIMARY KEY, name_en TEXT NOT NULL UNIQUE)";
+    // Dates as epoch days and times as minutes of the day; NULL where the page had no time
+    private static final String CREATE_PRAYER_TIMES = "CREATE TABLE prayer_times (city_id INTEGER NOT NULL REFERENCES cities(id), epoch_day INTEGER NOT NULL, "
+        + "fajr SMALLINT, sunrise SMALLINT, dhuhr SMALLINT, asr SMALLINT, maghrib SMALLINT, isha SMALLINT, last_updated INTEGER, "
+        + "PRIMARY KEY (city_id, epoch_day)) WITHOUT ROWID";
+
     public static synchronized DatabaseHelper getInstance(Context context) {
         if (instance == null) {
             instance = new DatabaseHelper(context.getApplicationContext());
@@ -19,18 +40,56 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         return instance;
     }
 
+    // Robolectric gives every test a fresh app and files dir; drop the helper bound to the last one
+    static synchronized void resetForTests() {
+        if (instance != null) {
+            instance.flush();
+            instance.writer.shutdown();
+            instance.close();
+            instance = null;
+        }
+    }
+
+    private final DatabaseWriter writer;
+
     private DatabaseHelper(Context context) {
         super(context, DATABASE_NAME, null, DATABASE_VERSION);
+        writer = new DatabaseWriter(this);
+    }
+
+    // WAL lets the service and UI keep reading while the writer thread commits
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        super.onConfigure(db);
+        // Only takes effect on a new file; older databases are converted by the first compact()
+        db.execSQL("PRAGMA auto_vacuum = INCREMENTAL");
+        db.enableWriteAheadLogging();
+    }
+
+    public DatabaseWriter getWriter() {
+        return writer;
+    }
+
+    // Blocks until every write queued so far has been committed
+    public void flush() {
+        writer.submit(db -> null).join();
     }
 
     @Override
     public void onCreate(SQLiteDatabase db) {
         db.execSQL("CREATE TABLE settings (key TEXT PRIMARY KEY, value TEXT, updated_at INTEGER)");
-        db.execSQL("CREATE TABLE prayer_times (id INTEGER PRIMARY KEY AUTOINCREMENT, city_name TEXT NOT NULL, date TEXT NOT NULL, fajr TEXT, sunrise TEXT, dhuhr TEXT, asr TEXT, maghrib TEXT, isha TEXT, last_updated INTEGER, UNIQUE(city_name, date))");
+        db.execSQL(CREATE_CITIES);
+        db.execSQL(CREATE_PRAYER_TIMES);
+        seedCities(db);
         db.execSQL("CREATE TABLE iqama_delays (prayer TEXT PRIMARY KEY, delay_minutes INTEGER)");
         db.execSQL("CREATE TABLE prayer_alarms (prayer TEXT PRIMARY KEY, enabled INTEGER DEFAULT 1)");
-        db.execSQL("CREATE TABLE update_tracking (id INTEGER PRIMARY KEY, last_update_date TEXT)");
+        db.execSQL(CREATE_COVERAGE);
         db.execSQL("CREATE TABLE alarm_tracking (date TEXT PRIMARY KEY, alarms_set INTEGER DEFAULT 0)");
+        db.execSQL("CREATE TABLE page_validators (city_id INTEGER PRIMARY KEY, etag TEXT, last_modified TEXT, updated_at INTEGER)");
+        db.execSQL("CREATE TABLE refresh_job (city_id INTEGER PRIMARY KEY, city_name TEXT, status TEXT, attempts INTEGER DEFAULT 0, last_error TEXT, updated_at INTEGER)");
+        db.execSQL("CREATE TABLE crawl_lease (id INTEGER PRIMARY KEY, owner TEXT, expires_at INTEGER)");
+        db.execSQL(CREATE_ALARM_SCHEDULE);
+        db.execSQL(CREATE_SCHEDULED_ALARMS);
     }
 
     @Override
@@ -39,15 +98,154 @@ public class DatabaseHelper extends SQLiteOpenHelper {
             db.execSQL("DROP TABLE IF EXISTS update_tracking");
             db.execSQL("CREATE TABLE update_tracking (id INTEGER PRIMARY KEY, last_update_date TEXT)");
         }
+        if (oldVersion < 3) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS page_validators (city_id INTEGER PRIMARY KEY, etag TEXT, last_modified TEXT, updated_at INTEGER)");
+        }
+        if (oldVersion < 4) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS refresh_job (city_id INTEGER PRIMARY KEY, city_name TEXT, status TEXT, attempts INTEGER DEFAULT 0, last_error TEXT, updated_at INTEGER)");
+        }
+        if (oldVersion < 5) {
+            db.execSQL("CREATE TABLE IF NOT EXISTS crawl_lease (id INTEGER PRIMARY KEY, owner TEXT, expires_at INTEGER)");
+        }
+        if (oldVersion < 6) {
+            migratePrayerTimesToIntegers(db);
+        }
+        if (oldVersion < 7) {
+            migrateAlarmDaysToMasks(db);
+        }
+        if (oldVersion < 8) {
+            // The coverage spans replace the single global last-update date
+            db.execSQL(CREATE_COVERAGE);
+            db.execSQL("INSERT INTO coverage (city_id, first_day, last_day) SELECT city_id, MIN(epoch_day), MAX(epoch_day) FROM prayer_times GROUP BY city_id");
+            db.execSQL("DROP TABLE IF EXISTS update_tracking");
+        }
+        if (oldVersion < 9) {
+            db.execSQL(CREATE_SCHEDULED_ALARMS);
+        }
     }
 
-    public void saveSetting(String key, String value) {
-        SQLiteDatabase db = getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put("key", key);
-        values.put("value", value);
-        values.put("updated_at", System.currentTimeMillis());
-        db.insertWithOnConflict("settings", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    // Folds the alarm_<prayer>_<day> settings rows into one weekday mask per prayer
+    private void migrateAlarmDaysToMasks(SQLiteDatabase db) {
+        db.execSQL(CREATE_ALARM_SCHEDULE);
+        for (String prayer : AlarmSchedule.PRAYERS) {
+            int mask = AlarmSchedule.ALL_DAYS;
+            Cursor cursor = db.query("settings", new String[]{"key", "value"}, "key LIKE ?", new String[]{"alarm_" + prayer + "_%"}, null, null, null);
+            if (cursor != null) {
+                while (cursor.moveToNext()) {
+                    int day = AlarmSchedule.dayIndex(cursor.getString(0).substring(("alarm_" + prayer + "_").length()));
+                    if (day >= 0 && !Boolean.parseBoolean(cursor.getString(1))) {
+                        mask &= ~(1 << day);
+                    }
+                }
+                cursor.close();
+            }
+            ContentValues values = new ContentValues();
+            values.put("prayer", prayer);
+            values.put("day_mask", mask);
+            db.insertWithOnConflict("alarm_schedule", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            db.delete("settings", "key LIKE ?", new String[]{"alarm_" + prayer + "_%"});
+        }
+    }
+
+    // Rebuilds the text prayer_times table with integer columns, keeping every row whose city is known
+    private void migratePrayerTimesToIntegers(SQLiteDatabase db) {
+        db.execSQL("DROP TABLE IF EXISTS cities");
+        db.execSQL(CREATE_CITIES);
+        seedCities(db);
+        db.execSQL("ALTER TABLE prayer_times RENAME TO prayer_times_text");
+        db.execSQL(CREATE_PRAYER_TIMES);
+        db.execSQL("INSERT OR REPLACE INTO prayer_times (city_id, epoch_day, fajr, sunrise, dhuhr, asr, maghrib, isha, last_updated) "
+            + "SELECT c.id, CAST(julianday(p.date) - 2440587.5 AS INTEGER), "
+            + minutesSql("p.fajr") + ", NULLIF(" + minutesSql("p.sunrise") + ", 0), " + minutesSql("p.dhuhr") + ", "
+            + minutesSql("p.asr") + ", " + minutesSql("p.maghrib") + ", " + minutesSql("p.isha") + ", p.last_updated "
+            + "FROM prayer_times_text p JOIN cities c ON c.name_en = p.city_name WHERE julianday(p.date) IS NOT NULL");
+        db.execSQL("DROP TABLE prayer_times_text");
+    }
+
+    private static String minutesSql(String column) {
+        return "CASE WHEN " + column + " GLOB '[0-9]*:[0-9][0-9]' THEN CAST(substr(" + column + ", 1, instr(" + column + ", ':') - 1) AS INTEGER) * 60 + CAST(substr("
+            + column + ", instr(" + column + ", ':') + 1) AS INTEGER) END";
+    }
+
+    private static void seedCities(SQLiteDatabase db) {
+        for (City city : CitiesData.getAllCities()) {
+            db.execSQL("INSERT OR IGNORE INTO cities (id, name_en) VALUES (?, ?)", new Object[]{city.getId(), city.getNameEn()});
+        }
+    }
+
+    private static int cityIdFor(String cityName) {
+        City city = CitiesData.findCityByName(cityName);
+        return city != null ? city.getId() : -1;
+    }
+
+    public CompletableFuture<Void> saveSetting(String key, String value) {
+        return writer.submit(db -> {
+            ContentValues values = new ContentValues();
+            values.put("key", key);
+            values.put("value", value);
+            values.put("updated_at", System.currentTimeMillis());
+            db.insertWithOnConflict("settings", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            return null;
+        });
+    }
+
+    // Weekday masks keyed by prayer; prayers without a row are absent
+    public java.util.Map<String, Integer> getAlarmDayMasks() {
+        java.util.Map<String, Integer> masks = new java.util.HashMap<>();
+        Cursor cursor = getReadableDatabase().query("alarm_schedule", new String[]{"prayer", "day_mask"}, null, null, null, null, null);
+        if (cursor != null) {
+            while (cursor.moveToNext()) {
+                masks.put(cursor.getString(0), cursor.getInt(1));
+            }
+            cursor.close();
+        }
+        return masks;
+    }
+
+    public CompletableFuture<Void> setAlarmDayMasks(java.util.Map<String, Integer> masks) {
+        return writer.submit(db -> {
+            for (java.util.Map.Entry<String, Integer> mask : masks.entrySet()) {
+                ContentValues values = new ContentValues();
+                values.put("prayer", mask.getKey());
+                values.put("day_mask", mask.getValue());
+                db.insertWithOnConflict("alarm_schedule", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            }
+            return null;
+        });
+    }
+
+    public java.util.Map<Integer, Long> getScheduledAlarms() {
+        java.util.Map<Integer, Long> alarms = new java.util.HashMap<>();
+        Cursor cursor = getReadableDatabase().query("scheduled_alarms", new String[]{"request_code", "trigger_at"}, null, null, null, null, null);
+        if (cursor != null) {
+            while (cursor.moveToNext()) {
+                alarms.put(cursor.getInt(0), cursor.getLong(1));
+            }
+            cursor.close();
+        }
+        return alarms;
+    }
+
+    public CompletableFuture<Void> updateScheduledAlarms(java.util.Map<Integer, Long> set, java.util.Collection<Integer> removed) {
+        return writer.submit(db -> {
+            for (int code : removed) {
+                db.delete("scheduled_alarms", "request_code = ?", new String[]{String.valueOf(code)});
+            }
+            for (java.util.Map.Entry<Integer, Long> alarm : set.entrySet()) {
+                ContentValues values = new ContentValues();
+                values.put("request_code", alarm.getKey());
+                values.put("trigger_at", alarm.getValue());
+                db.insertWithOnConflict("scheduled_alarms", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            }
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> clearScheduledAlarms() {
+        return writer.submit(db -> {
+            db.execSQL("DELETE FROM scheduled_alarms");
+            return null;
+        });
     }
 
     public String getSetting(String key, String defaultValue) {
@@ -62,33 +260,109 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         return defaultValue;
     }
 
-    public void savePrayerTimes(String cityName, String date, String fajr, String sunrise, String dhuhr, String asr, String maghrib, String isha) {
-        SQLiteDatabase db = getWritableDatabase();
+    public CompletableFuture<Void> savePrayerTimes(String cityName, String date, String fajr, String sunrise, String dhuhr, String asr, String maghrib, String isha) {
+        int cityId = cityIdFor(cityName);
+        int epochDay = EpochDays.parseIso(date);
+        if (cityId < 0 || epochDay < 0) return CompletableFuture.completedFuture(null);
+        
         ContentValues values = new ContentValues();
-        values.put("city_name", cityName);
-        values.put("date", date);
-        values.put("fajr", fajr);
-        values.put("sunrise", sunrise);
-        values.put("dhuhr", dhuhr);
-        values.put("asr", asr);
-        values.put("maghrib", maghrib);
-        values.put("isha", isha);
+        values.put("city_id", cityId);
+        values.put("epoch_day", epochDay);
+        putMinutes(values, "fajr", MonthTimetable.parseMinutes(fajr));
+        int sunriseMinutes = MonthTimetable.parseMinutes(sunrise);
+        putMinutes(values, "sunrise", sunriseMinutes == 0 ? MonthTimetable.UNKNOWN : sunriseMinutes); // "00:00" meant unknown
+        putMinutes(values, "dhuhr", MonthTimetable.parseMinutes(dhuhr));
+        putMinutes(values, "asr", MonthTimetable.parseMinutes(asr));
+        putMinutes(values, "maghrib", MonthTimetable.parseMinutes(maghrib));
+        putMinutes(values, "isha", MonthTimetable.parseMinutes(isha));
         values.put("last_updated", System.currentTimeMillis());
-        db.insertWithOnConflict("prayer_times", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+        return writer.submit(db -> {
+            db.insertWithOnConflict("prayer_times", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            updateCoverageSpan(db, cityId);
+            return (Void) null;
+        }).whenComplete((result, error) -> prayerTimesChanged());
+    }
+
+    // Runs on the writer thread once stored days change: drop the in-memory copies and queue
+    // a replan, which AdhanScheduler does on its own thread
+    private static void prayerTimesChanged() {
+        DayScheduleCache.invalidate();
+        PrayerTimeline.invalidate();
+        AdhanScheduler.reschedule();
+    }
+
+    private static void putMinutes(ContentValues values, String column, int minutes) {
+        if (minutes == MonthTimetable.UNKNOWN) {
+            values.putNull(column);
+        } else {
+            values.put(column, minutes);
+        }
+    }
+
+    // Writes every city's month through a single compiled statement inside the writer's
+    // transaction, rather than an implicit transaction (and fsync) per row
+    public CompletableFuture<Integer> savePrayerTimesMonths(java.util.Map<City, MonthTimetable> months) {
+        java.util.Calendar today = java.util.Calendar.getInstance();
+        long now = System.currentTimeMillis();
+        return writer.submit(db -> {
+            int saved = 0;
+            android.database.sqlite.SQLiteStatement insert = db.compileStatement(
+                "INSERT OR REPLACE INTO prayer_times (city_id, epoch_day, fajr, sunrise, dhuhr, asr, maghrib, isha, last_updated) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)");
+            try {
+                for (java.util.Map.Entry<City, MonthTimetable> month : months.entrySet()) {
+                    City city = month.getKey();
+                    db.execSQL("INSERT OR IGNORE INTO cities (id, name_en) VALUES (?, ?)", new Object[]{city.getId(), city.getNameEn()});
+                    MonthTimetable timetable = month.getValue();
+                    for (int day = 0; day < timetable.size(); day++) {
+                        if (timetable.getMinutes(day, MonthTimetable.FAJR) == MonthTimetable.UNKNOWN) continue;
+                        int epochDay = timetable.getEpochDay(day, today);
+                        if (epochDay < 0) continue;
+                        
+                        insert.bindLong(1, city.getId());
+                        insert.bindLong(2, epochDay);
+                        for (int slot = 0; slot < MonthTimetable.SLOTS; slot++) {
+                            int minutes = timetable.getMinutes(day, slot);
+                            if (minutes == MonthTimetable.UNKNOWN) {
+                                insert.bindNull(3 + slot);
+                            } else {
+                                insert.bindLong(3 + slot, minutes);
+                            }
+                        }
+                        insert.bindLong(9, now);
+                        insert.executeInsert();
+                        insert.clearBindings();
+                        saved++;
+                    }
+                    updateCoverageSpan(db, city.getId());
+                    setFetchResult(db, city.getId(), now, FETCH_OK);
+                }
+            } finally {
+                insert.close();
+            }
+            return saved;
+        }).whenComplete((saved, error) -> prayerTimesChanged());
     }
 
     public PrayerTimes loadPrayerTimes(String cityName, String date) {
+        int cityId = cityIdFor(cityName);
+        int epochDay = EpochDays.parseIso(date);
+        if (cityId < 0 || epochDay < 0) return null;
+        return loadPrayerTimes(cityId, epochDay);
+    }
+
+    public PrayerTimes loadPrayerTimes(int cityId, int epochDay) {
         SQLiteDatabase db = getReadableDatabase();
-        Cursor cursor = db.query("prayer_times", null, "city_name = ? AND date = ?", new String[]{cityName, date}, null, null, null);
+        Cursor cursor = db.rawQuery("SELECT fajr, sunrise, dhuhr, asr, maghrib, isha FROM prayer_times WHERE city_id = ? AND epoch_day = ?",
+            new String[]{String.valueOf(cityId), String.valueOf(epochDay)});
         if (cursor != null && cursor.moveToFirst()) {
             PrayerTimes times = new PrayerTimes(
-                cursor.getString(cursor.getColumnIndexOrThrow("date")),
-                cursor.getString(cursor.getColumnIndexOrThrow("fajr")),
-                cursor.getString(cursor.getColumnIndexOrThrow("sunrise")),
-                cursor.getString(cursor.getColumnIndexOrThrow("dhuhr")),
-                cursor.getString(cursor.getColumnIndexOrThrow("asr")),
-                cursor.getString(cursor.getColumnIndexOrThrow("maghrib")),
-                cursor.getString(cursor.getColumnIndexOrThrow("isha"))
+                EpochDays.toIso(epochDay),
+                timeAt(cursor, 0, "05:30"),
+                timeAt(cursor, 1, "00:00"),
+                timeAt(cursor, 2, "13:00"),
+                timeAt(cursor, 3, "16:30"),
+                timeAt(cursor, 4, "19:00"),
+                timeAt(cursor, 5, "20:30")
             );
             cursor.close();
             return times;
@@ -97,12 +371,78 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         return null;
     }
 
-    public void setIqamaDelay(String prayer, int minutes) {
-        SQLiteDatabase db = getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put("prayer", prayer.toLowerCase());
-        values.put("delay_minutes", minutes);
-        db.insertWithOnConflict("iqama_delays", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    // One cursor pass over [fromDay, toDay], decoded into MonthTimetable.SLOTS minutes per day
+    // (index (day - fromDay) * SLOTS + slot), UNKNOWN where a day or time isn't stored.
+    // Pass the previous result back as buffer to avoid allocating; it is replaced if too small.
+    public short[] loadRange(int cityId, int fromDay, int toDay, short[] buffer) {
+        int length = Math.max(0, toDay - fromDay + 1) * MonthTimetable.SLOTS;
+        if (buffer == null || buffer.length < length) {
+            buffer = new short[length];
+        }
+        java.util.Arrays.fill(buffer, 0, length, (short) MonthTimetable.UNKNOWN);
+        if (length == 0) return buffer;
+        
+        SQLiteDatabase db = getReadableDatabase();
+        Cursor cursor = db.rawQuery("SELECT epoch_day, fajr, sunrise, dhuhr, asr, maghrib, isha FROM prayer_times WHERE city_id = ? AND epoch_day BETWEEN ? AND ?",
+            new String[]{String.valueOf(cityId), String.valueOf(fromDay), String.valueOf(toDay)});
+        if (cursor != null) {
+            while (cursor.moveToNext()) {
+                int base = (cursor.getInt(0) - fromDay) * MonthTimetable.SLOTS;
+                for (int slot = 0; slot < MonthTimetable.SLOTS; slot++) {
+                    if (!cursor.isNull(slot + 1)) {
+                        buffer[base + slot] = cursor.getShort(slot + 1);
+                    }
+                }
+            }
+            cursor.close();
+        }
+        return buffer;
+    }
+
+    public short[] loadRange(int cityId, int fromDay, int toDay) {
+        return loadRange(cityId, fromDay, toDay, null);
+    }
+
+    private static String timeAt(Cursor cursor, int column, String fallback) {
+        return cursor.isNull(column) ? fallback : MonthTimetable.formatMinutes(cursor.getInt(column));
+    }
+
+    // Every setting in one pass, for SettingsManager's in-memory snapshot
+    public java.util.Map<String, String> getAllSettings() {
+        SQLiteDatabase db = getReadableDatabase();
+        java.util.Map<String, String> settings = new java.util.HashMap<>();
+        Cursor cursor = db.rawQuery("SELECT key, value FROM settings", null);
+        if (cursor != null) {
+            while (cursor.moveToNext()) {
+                settings.put(cursor.getString(0), cursor.getString(1));
+            }
+            cursor.close();
+        }
+        cursor = db.rawQuery("SELECT prayer, delay_minutes FROM iqama_delays", null);
+        if (cursor != null) {
+            while (cursor.moveToNext()) {
+                settings.put(IQAMA_DELAY_PREFIX + cursor.getString(0), String.valueOf(cursor.getInt(1)));
+            }
+            cursor.close();
+        }
+        cursor = db.rawQuery("SELECT prayer, enabled FROM prayer_alarms", null);
+        if (cursor != null) {
+            while (cursor.moveToNext()) {
+                settings.put(PRAYER_ALARM_PREFIX + cursor.getString(0), String.valueOf(cursor.getInt(1) == 1));
+            }
+            cursor.close();
+        }
+        return settings;
+    }
+
+    public CompletableFuture<Void> setIqamaDelay(String prayer, int minutes) {
+        return writer.submit(db -> {
+            ContentValues values = new ContentValues();
+            values.put("prayer", prayer.toLowerCase());
+            values.put("delay_minutes", minutes);
+            db.insertWithOnConflict("iqama_delays", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            return null;
+        });
     }
 
     public int getIqamaDelay(String prayer, int defaultValue) {
@@ -117,12 +457,14 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         return defaultValue;
     }
 
-    public void setPrayerAlarmEnabled(String prayer, boolean enabled) {
-        SQLiteDatabase db = getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put("prayer", prayer.toLowerCase());
-        values.put("enabled", enabled ? 1 : 0);
-        db.insertWithOnConflict("prayer_alarms", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    public CompletableFuture<Void> setPrayerAlarmEnabled(String prayer, boolean enabled) {
+        return writer.submit(db -> {
+            ContentValues values = new ContentValues();
+            values.put("prayer", prayer.toLowerCase());
+            values.put("enabled", enabled ? 1 : 0);
+            db.insertWithOnConflict("prayer_alarms", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            return null;
+        });
     }
 
     public boolean getPrayerAlarmEnabled(String prayer, boolean defaultValue) {
@@ -137,12 +479,14 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         return defaultValue;
     }
 
-    public void markAlarmsSet(String date) {
-        SQLiteDatabase db = getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put("date", date);
-        values.put("alarms_set", 1);
-        db.insertWithOnConflict("alarm_tracking", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    public CompletableFuture<Void> markAlarmsSet(String date) {
+        return writer.submit(db -> {
+            ContentValues values = new ContentValues();
+            values.put("date", date);
+            values.put("alarms_set", 1);
+            db.insertWithOnConflict("alarm_tracking", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            return null;
+        });
     }
 
     public boolean areAlarmsSet(String date) {
@@ -157,29 +501,246 @@ public class DatabaseHelper extends SQLiteOpenHelper {
         return false;
     }
 
-    public void clearAllData() {
-        SQLiteDatabase db = getWritableDatabase();
-        db.execSQL("DELETE FROM prayer_times");
-        db.execSQL("DELETE FROM update_tracking");
+    // Drops stored days before the given epoch day; returns how many rows went
+    public CompletableFuture<Integer> deletePrayerTimesBefore(int epochDay) {
+        return writer.submit(db -> {
+            String[] args = {String.valueOf(epochDay)};
+            int deleted = db.delete("prayer_times", "epoch_day < ?", args);
+            db.execSQL("UPDATE coverage SET first_day = NULL, last_day = NULL WHERE last_day < ?", args);
+            db.execSQL("UPDATE coverage SET first_day = ? WHERE first_day < ?", new Object[]{epochDay, epochDay});
+            return deleted;
+        }).whenComplete((deleted, error) -> prayerTimesChanged());
+    }
+
+    // Hands free pages back to the filesystem; returns the number of pages released
+    public CompletableFuture<Long> compact() {
+        return writer.submitOutsideTransaction(db -> {
+            long before = pragmaLong(db, "freelist_count");
+            if (pragmaLong(db, "auto_vacuum") != 2) {
+                // One full rebuild switches an older file over to incremental mode
+                db.execSQL("VACUUM");
+            } else {
+                Cursor cursor = db.rawQuery("PRAGMA incremental_vacuum", null);
+                if (cursor != null) {
+                    while (cursor.moveToNext()) { }
+                    cursor.close();
+                }
+            }
+            return before - pragmaLong(db, "freelist_count");
+        });
+    }
+
+    private static long pragmaLong(SQLiteDatabase db, String pragma) {
+        Cursor cursor = db.rawQuery("PRAGMA " + pragma, null);
+        long value = 0;
+        if (cursor != null) {
+            if (cursor.moveToFirst()) value = cursor.getLong(0);
+            cursor.close();
+        }
+        return value;
+    }
+
+    // Main file plus the write-ahead log
+    public long getDatabaseSizeBytes() {
+        SQLiteDatabase db = getReadableDatabase();
+        return pragmaLong(db, "page_count") * pragmaLong(db, "page_size") + new java.io.File(db.getPath() + "-wal").length();
+    }
+
+    public long getFreeBytes() {
+        SQLiteDatabase db = getReadableDatabase();
+        return pragmaLong(db, "freelist_count") * pragmaLong(db, "page_size");
+    }
+
+    public java.util.Map<String, Integer> getTableRowCounts() {
+        SQLiteDatabase db = getReadableDatabase();
+        java.util.Map<String, Integer> counts = new java.util.LinkedHashMap<>();
+        String[] tables = {"prayer_times", "coverage", "settings", "alarm_tracking", "page_validators", "refresh_job", "scheduled_alarms"};
+        for (String table : tables) {
+            Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM " + table, null);
+            if (cursor != null) {
+                if (cursor.moveToFirst()) counts.put(table, cursor.getInt(0));
+                cursor.close();
+            }
+        }
+        return counts;
+    }
+
+    public CompletableFuture<Void> clearAllData() {
+        return writer.submit(db -> {
+            db.execSQL("DELETE FROM prayer_times");
+            db.execSQL("DELETE FROM coverage");
+            db.execSQL("DELETE FROM page_validators");
+            db.execSQL("DELETE FROM refresh_job");
+            return (Void) null;
+        }).whenComplete((result, error) -> prayerTimesChanged());
     }
     
-    public void setLastUpdateDate(String date) {
-        SQLiteDatabase db = getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put("id", 1);
-        values.put("last_update_date", date);
-        db.insertWithOnConflict("update_tracking", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    // Stored days are written a month at a time, so the span between the first and last day has no holes
+    private static void updateCoverageSpan(SQLiteDatabase db, int cityId) {
+        db.execSQL("INSERT OR IGNORE INTO coverage (city_id) VALUES (?)", new Object[]{cityId});
+        db.execSQL("UPDATE coverage SET first_day = (SELECT MIN(epoch_day) FROM prayer_times WHERE city_id = ?1), "
+            + "last_day = (SELECT MAX(epoch_day) FROM prayer_times WHERE city_id = ?1) WHERE city_id = ?1", new Object[]{cityId});
+    }
+
+    private static void setFetchResult(SQLiteDatabase db, int cityId, long time, String result) {
+        db.execSQL("INSERT OR IGNORE INTO coverage (city_id) VALUES (?)", new Object[]{cityId});
+        db.execSQL("UPDATE coverage SET last_fetch = ?, last_result = ? WHERE city_id = ?", new Object[]{time, result, cityId});
+    }
+
+    public CompletableFuture<Void> recordFetchResult(int cityId, String result) {
+        long now = System.currentTimeMillis();
+        return writer.submit(db -> {
+            setFetchResult(db, cityId, now, result);
+            return null;
+        });
+    }
+
+    // Cities whose stored span doesn't reach from fromDay through toDay, in one query joined on the coverage key
+    public java.util.List<Integer> getCitiesMissingDays(int fromDay, int toDay) {
+        java.util.List<Integer> ids = new java.util.ArrayList<>();
+        Cursor cursor = getReadableDatabase().rawQuery("SELECT c.id FROM cities c LEFT JOIN coverage v ON v.city_id = c.id "
+            + "WHERE v.last_day IS NULL OR v.last_day < ? OR v.first_day > ?", new String[]{String.valueOf(toDay), String.valueOf(fromDay)});
+        if (cursor != null) {
+            while (cursor.moveToNext()) {
+                ids.add(cursor.getInt(0));
+            }
+            cursor.close();
+        }
+        return ids;
+    }
+
+    public java.util.Map<Integer, StorageManager.Coverage> getCoverage() {
+        java.util.Map<Integer, StorageManager.Coverage> coverage = new java.util.HashMap<>();
+        Cursor cursor = getReadableDatabase().rawQuery("SELECT city_id, first_day, last_day, last_fetch, last_result FROM coverage", null);
+        if (cursor != null) {
+            while (cursor.moveToNext()) {
+                coverage.put(cursor.getInt(0), new StorageManager.Coverage(
+                    cursor.getInt(0),
+                    cursor.isNull(1) ? -1 : cursor.getInt(1),
+                    cursor.isNull(2) ? -1 : cursor.getInt(2),
+                    cursor.isNull(3) ? 0 : cursor.getLong(3),
+                    cursor.getString(4)
+                ));
+            }
+            cursor.close();
+        }
+        return coverage;
     }
     
-    public String getLastUpdateDate() {
+    public CompletableFuture<Void> savePageValidators(int cityId, String etag, String lastModified) {
+        return writer.submit(db -> {
+            ContentValues values = new ContentValues();
+            values.put("city_id", cityId);
+            values.put("etag", etag);
+            values.put("last_modified", lastModified);
+            values.put("updated_at", System.currentTimeMillis());
+            db.insertWithOnConflict("page_validators", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            return null;
+        });
+    }
+    
+    public String[] getPageValidators(int cityId) {
         SQLiteDatabase db = getReadableDatabase();
-        Cursor cursor = db.query("update_tracking", new String[]{"last_update_date"}, "id = 1", null, null, null, null);
+        Cursor cursor = db.query("page_validators", new String[]{"etag", "last_modified"}, "city_id = ?", new String[]{String.valueOf(cityId)}, null, null, null);
         if (cursor != null && cursor.moveToFirst()) {
-            String date = cursor.getString(0);
+            String[] validators = {cursor.getString(0), cursor.getString(1)};
             cursor.close();
-            return date;
+            return validators;
         }
         if (cursor != null) cursor.close();
         return null;
     }
+    
+    // Cities in the current refresh job, whatever their status
+    public int countRefreshJobCities() {
+        SQLiteDatabase db = getReadableDatabase();
+        Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM refresh_job", null);
+        int count = 0;
+        if (cursor != null) {
+            if (cursor.moveToFirst()) count = cursor.getInt(0);
+            cursor.close();
+        }
+        return count;
+    }
+    
+    // reset puts cities already in the job back to pending with no attempts
+    public CompletableFuture<Void> addRefreshJobCities(java.util.List<City> cities, boolean reset) {
+        return writer.submit(db -> {
+            long now = System.currentTimeMillis();
+            for (City city : cities) {
+                ContentValues values = new ContentValues();
+                values.put("city_id", city.getId());
+                values.put("city_name", city.getNameEn());
+                values.put("status", RefreshJobManager.STATUS_PENDING);
+                values.put("attempts", 0);
+                values.put("updated_at", now);
+                db.insertWithOnConflict("refresh_job", null, values, reset ? SQLiteDatabase.CONFLICT_REPLACE : SQLiteDatabase.CONFLICT_IGNORE);
+            }
+            return null;
+        });
+    }
+    
+    public CompletableFuture<Void> updateRefreshJobCity(int cityId, String status, String lastError) {
+        return writer.submit(db -> {
+            db.execSQL("UPDATE refresh_job SET status = ?, attempts = attempts + 1, last_error = ?, updated_at = ? WHERE city_id = ?",
+                new Object[]{status, lastError, System.currentTimeMillis(), cityId});
+            return null;
+        });
+    }
+    
+    public java.util.List<RefreshJobManager.CityState> getRefreshJobCities() {
+        SQLiteDatabase db = getReadableDatabase();
+        java.util.List<RefreshJobManager.CityState> states = new java.util.ArrayList<>();
+        Cursor cursor = db.query("refresh_job", new String[]{"city_id", "city_name", "status", "attempts", "last_error"}, null, null, null, null, "city_id");
+        if (cursor != null) {
+            while (cursor.moveToNext()) {
+                states.add(new RefreshJobManager.CityState(cursor.getInt(0), cursor.getString(1), cursor.getString(2), cursor.getInt(3), cursor.getString(4)));
+            }
+            cursor.close();
+        }
+        return states;
+    }
+    
+    public CompletableFuture<Void> clearRefreshJob() {
+        return writer.submit(db -> {
+            db.execSQL("DELETE FROM refresh_job");
+            return null;
+        });
+    }
+    
+    // Takes the single lease row if it is free, expired or already ours
+    public CompletableFuture<Boolean> acquireCrawlLease(String owner, long now, long expiresAt) {
+        return writer.submit(db -> {
+            boolean free = true;
+            Cursor cursor = db.query("crawl_lease", new String[]{"owner", "expires_at"}, "id = 1", null, null, null, null);
+            if (cursor != null) {
+                if (cursor.moveToFirst()) {
+                    free = owner.equals(cursor.getString(0)) || cursor.getLong(1) < now;
+                }
+                cursor.close();
+            }
+            if (free) {
+                ContentValues values = new ContentValues();
+                values.put("id", 1);
+                values.put("owner", owner);
+                values.put("expires_at", expiresAt);
+                db.insertWithOnConflict("crawl_lease", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+            }
+            return free;
+        });
+    }
+    
+    public CompletableFuture<Void> renewCrawlLease(String owner, long expiresAt) {
+        return writer.submit(db -> {
+            db.execSQL("UPDATE crawl_lease SET expires_at = ? WHERE id = 1 AND owner = ?", new Object[]{expiresAt, owner});
+            return null;
+        });
+    }
+    
+    public CompletableFuture<Void> releaseCrawlLease(String owner) {
+        return writer.submit(db -> {
+            db.execSQL("DELETE FROM crawl_lease WHERE id = 1 AND owner = ?", new Object[]{owner});
+            return null;
+        });
+    }
 }
@@ -0,0 +1,158 @@
+package com.salah.times;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.util.Log;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+
+// Runs every database mutation on one background thread. Writes queued back to back are
+// committed together in a single transaction; each caller gets a future for its own write.
+public class DatabaseWriter {
+    private static final String TAG = "DatabaseWriter";
+    private static final int MAX_BATCH = 64;
+
+    public interface Write<T> {
+        T apply(SQLiteDatabase db);
+    }
+
+    private final SQLiteOpenHelper helper;
+    private final BlockingQueue<Task<?>> queue = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    private volatile long writeCount = 0;
+    private volatile long transactionCount = 0;
+
+    public DatabaseWriter(SQLiteOpenHelper helper) {
+        this.helper = helper;
+        thread = new Thread(this::run, "db-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public <T> CompletableFuture<T> submit(Write<T> write) {
+        return enqueue(new Task<>(write, true));
+    }
+
+    // For statements SQLite refuses inside a transaction, such as VACUUM; runs on its own
+    public <T> CompletableFuture<T> submitOutsideTransaction(Write<T> write) {
+        return enqueue(new Task<>(write, false));
+    }
+
+    private <T> CompletableFuture<T> enqueue(Task<T> task) {
+        Write<T> write = task.write;
+        if (Thread.currentThread() == thread) {
+            // Already inside a batch; joining a queued task from here would never finish.
+            // A failure still propagates so the enclosing write's batch rolls back.
+            try {
+                task.complete(write.apply(helper.getWritableDatabase()));
+            } catch (RuntimeException | Error e) {
+                task.future.completeExceptionally(e);
+                throw e;
+            }
+        } else {
+            queue.add(task);
+        }
+        return task.future;
+    }
+
+    // Stops the thread once it is idle; writes submitted afterwards never complete
+    void shutdown() {
+        thread.interrupt();
+    }
+
+    public long getWriteCount() {
+        return writeCount;
+    }
+
+    public long getTransactionCount() {
+        return transactionCount;
+    }
+
+    private void run() {
+        List<Task<?>> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+            int start = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                Task<?> task = batch.get(i);
+                if (task.inTransaction) continue;
+                if (i > start) apply(batch.subList(start, i));
+                applyAlone(task);
+                start = i + 1;
+            }
+            if (start < batch.size()) apply(batch.subList(start, batch.size()));
+            batch.clear();
+        }
+    }
+
+    private void apply(List<Task<?>> batch) {
+        List<Object> results = new ArrayList<>(batch.size());
+        try {
+            SQLiteDatabase db = helper.getWritableDatabase();
+            db.beginTransaction();
+            try {
+                for (Task<?> task : batch) {
+                    results.add(task.write.apply(db));
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        } catch (Throwable e) {
+            // Errors too: if one escaped, the thread would die and every later flush() would hang
+            if (batch.size() == 1) {
+                Log.e(TAG, "Write failed", e);
+                batch.get(0).future.completeExceptionally(e);
+                return;
+            }
+            // One bad write rolled back the whole batch; retry them alone so the rest still land
+            Log.w(TAG, "Batch of " + batch.size() + " failed, retrying writes one by one", e);
+            for (Task<?> task : batch) {
+                apply(Collections.singletonList(task));
+            }
+            return;
+        }
+
+        transactionCount++;
+        writeCount += batch.size();
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).complete(results.get(i));
+        }
+    }
+
+    private void applyAlone(Task<?> task) {
+        try {
+            Object result = task.write.apply(helper.getWritableDatabase());
+            writeCount++;
+            task.complete(result);
+        } catch (Throwable e) {
+            Log.e(TAG, "Write failed", e);
+            task.future.completeExceptionally(e);
+        }
+    }
+
+    private static class Task<T> {
+        final Write<T> write;
+        final boolean inTransaction;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+
+        Task(Write<T> write, boolean inTransaction) {
+            this.write = write;
+            this.inTransaction = inTransaction;
+        }
+
+        @SuppressWarnings("unchecked")
+        void complete(Object result) {
+            future.complete((T) result);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.salah.times;
+
+import android.content.Context;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class DayScheduleCache {
+    // Yesterday, today and tomorrow for the current city plus the one before it
+    private static final int MAX_ENTRIES = 6;
+    private static final Object MISSING = new Object();
+
+    private static Context appContext;
+    private static final LinkedHashMap<Long, Object> entries = new LinkedHashMap<Long, Object>(MAX_ENTRIES + 2, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Object> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    private static long hits = 0;
+    private static long misses = 0;
+
+    public static void init(Context context) {
+        appContext = context.getApplicationContext();
+        SettingsManager.addListener(SettingsManager.KEY_DEFAULT_CITY, (key, value) -> invalidate());
+    }
+
+    // Prayer times for the city on the given epoch day, or null when none are stored.
+    // Rows only change when a refresh writes them, so lookups stay in memory until then.
+    // Every caller gets the same PrayerTimes, which is safe because PrayerTimes is immutable.
+    public static synchronized PrayerTimes get(String cityName, int epochDay) {
+        City city = CitiesData.findCityByName(cityName);
+        if (city == null) return null;
+
+        long key = ((long) city.getId() << 32) | (epochDay & 0xffffffffL);
+        Object cached = entries.get(key);
+        if (cached != null) {
+            hits++;
+            return cached == MISSING ? null : (PrayerTimes) cached;
+        }
+
+        misses++;
+        PrayerTimes times = DatabaseHelper.getInstance(appContext).loadPrayerTimes(city.getId(), epochDay);
+        entries.put(key, times != null ? times : MISSING);
+        return times;
+    }
+
+    public static PrayerTimes getToday(String cityName) {
+        return get(cityName, EpochDays.today());
+    }
+
+    // Cache only; whoever changed the stored days tells PrayerTimeline and AdhanScheduler
+    public static synchronized void invalidate() {
+        entries.clear();
+    }
+
+    public static synchronized long getHits() {
+        return hits;
+    }
+
+    public static synchronized long getMisses() {
+        return misses;
+    }
+}
@@ -0,0 +1,58 @@
+package com.salah.times;
+
+import java.util.Calendar;
+import java.util.Locale;
+import java.util.TimeZone;
+
+// Local calendar dates as days since 1970-01-01, the key prayer_times is stored under
+public final class EpochDays {
+    private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+
+    private EpochDays() {}
+
+    public static int of(int year, int month, int dayOfMonth) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + dayOfMonth - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    public static int of(Calendar calendar) {
+        return of(calendar.get(Calendar.YEAR), calendar.get(Calendar.MONTH) + 1, calendar.get(Calendar.DAY_OF_MONTH));
+    }
+
+    // The local date from the zone offset, without building a Calendar on every call
+    public static int today() {
+        long now = System.currentTimeMillis();
+        return (int) Math.floorDiv(now + TimeZone.getDefault().getOffset(now), MILLIS_PER_DAY);
+    }
+
+    // yyyy-MM-dd to an epoch day, or -1 if it isn't one
+    public static int parseIso(String date) {
+        if (date == null || date.length() != 10 || date.charAt(4) != '-' || date.charAt(7) != '-') return -1;
+        try {
+            int year = Integer.parseInt(date.substring(0, 4));
+            int month = Integer.parseInt(date.substring(5, 7));
+            int dayOfMonth = Integer.parseInt(date.substring(8, 10));
+            if (month < 1 || month > 12 || dayOfMonth < 1 || dayOfMonth > 31) return -1;
+            return of(year, month, dayOfMonth);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    public static String toIso(int epochDay) {
+        int z = epochDay + 719468;
+        int era = (z >= 0 ? z : z - 146096) / 146097;
+        int dayOfEra = z - era * 146097;
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int mp = (5 * dayOfYear + 2) / 153;
+        int dayOfMonth = dayOfYear - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return String.format(Locale.US, "%04d-%02d-%02d", year, month, dayOfMonth);
+    }
+}
@@ -0,0 +1,75 @@
+package com.salah.times;
+
+import android.content.Context;
+import android.util.Log;
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+import okhttp3.Cache;
+import okhttp3.ConnectionPool;
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+
+public class HttpClientManager {
+    private static final String TAG = "HttpClientManager";
+    private static final String CACHE_DIR = "prayer_cache";
+    private static final long CACHE_SIZE_BYTES = 10L * 1024 * 1024;
+    private static final int DEFAULT_MAX_AGE_SECONDS = 60 * 60;
+    public static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36";
+
+    private static OkHttpClient client;
+
+    public static synchronized void init(Context context) {
+        if (client != null) return;
+        File cacheDir = new File(context.getCacheDir(), CACHE_DIR);
+        client = buildClient(new Cache(cacheDir, CACHE_SIZE_BYTES));
+        Log.d(TAG, "HTTP client ready, cache at " + cacheDir.getAbsolutePath());
+    }
+
+    // One client for the whole process so connections stay pooled across a full refresh.
+    // OkHttp negotiates gzip transparently when no Accept-Encoding is set.
+    public static synchronized OkHttpClient getClient() {
+        if (client == null) {
+            client = buildClient(null);
+        }
+        return client;
+    }
+
+    private static OkHttpClient buildClient(Cache cache) {
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+            .connectionPool(new ConnectionPool(5, 5, TimeUnit.MINUTES))
+            .connectTimeout(15, TimeUnit.SECONDS)
+            .readTimeout(15, TimeUnit.SECONDS)
+            .addNetworkInterceptor(chain -> {
+                Response response = chain.proceed(chain.request());
+                // yabiladi pages often come without caching headers; keep them for a while
+                if (response.header("Cache-Control") == null && response.header("Expires") == null) {
+                    return response.newBuilder()
+                        .header("Cache-Control", "public, max-age=" + DEFAULT_MAX_AGE_SECONDS)
+                        .build();
+                }
+                return response;
+            });
+        if (cache != null) {
+            builder.cache(cache);
+        }
+        return builder.build();
+    }
+
+    public static long getCacheSize() {
+        try {
+            Cache cache = getClient().cache();
+            return cache != null ? cache.size() : 0;
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+
+    public static void clearCache() {
+        try {
+            Cache cache = getClient().cache();
+            if (cache != null) cache.evictAll();
+        } catch (Exception e) {
+            Log.w(TAG, "Failed to clear HTTP cache", e);
+        }
+    }
+}
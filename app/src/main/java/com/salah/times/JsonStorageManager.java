@@ -75,30 +75,9 @@ public class JsonStorageManager {
             new TypeToken<Map<String, Object>>(){}.getType());
     }
 
-    public void saveLastUpdate() {
-        Map<String, Object> updateInfo = new HashMap<>();
-        updateInfo.put("last_update", new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS").format(new Date()));
-        updateInfo.put("cities_updated", CitiesData.getAllCities().size());
-        saveJsonFile(new File(configDir, "last_update.json"), updateInfo);
-    }
-
+    // Update state lives in the coverage table now
     public boolean shouldUpdate() {
-        Map<String, Object> updateInfo = loadJsonFile(new File(configDir, "last_update.json"), 
-            new TypeToken<Map<String, Object>>(){}.getType());
-        
-        if (updateInfo == null) return true;
-        
-        try {
-            String lastUpdateStr = (String) updateInfo.get("last_update");
-            SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS");
-            Date lastUpdate = sdf.parse(lastUpdateStr);
-            Date now = new Date();
-            
-            long daysDiff = (now.getTime() - lastUpdate.getTime()) / (1000 * 60 * 60 * 24);
-            return daysDiff >= 1;
-        } catch (Exception e) {
-            return true;
-        }
+        return StorageManager.needsUpdate();
     }
 
     // City data files
@@ -18,6 +18,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
 
 public class MainActivity extends AppCompatActivity {
     
@@ -29,9 +30,23 @@ public class MainActivity extends AppCompatActivity {
     private TextView iqamaCountdown;
     private RecyclerView prayerGrid;
     private Handler handler = new Handler();
-    private Runnable updateTimeRunnable;
+    // Wakes at the next minute rollover (while visible), prayer start, iqama end or midnight
+    private final Runnable boundaryRunnable = this::onBoundary;
+    // Second-level countdown, only posted while the activity is in the foreground
+    private final Runnable countdownRunnable = new Runnable() {
+        @Override
+        public void run() {
+            updateLiveCountdown();
+            if (visible) {
+                handler.postDelayed(this, 1000 - System.currentTimeMillis() % 1000);
+            }
+        }
+    };
+    private boolean visible = false;
+    private int highlightedIndex = -2;
+    private int boundaryWakeups = 0;
     private PrayerTimes currentPrayerTimes;
-    private String tomorrowsFajr = null;
+    private PrayerTimeline timeline;
     
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -54,8 +69,7 @@ public class MainActivity extends AppCompatActivity {
         
         initViews();
         setupPrayerGrid();
-        startClockUpdate();
-        setAlarmsFromDatabase();
+        updateClock();
         loadPrayerTimes();
         
         // Check if first time setup needed
@@ -134,34 +148,59 @@ public class MainActivity extends AppCompatActivity {
         prayerGrid.setAdapter(adapter);
     }
     
-    private void startClockUpdate() {
-        updateTimeRunnable = new Runnable() {
-            @Override
-            public void run() {
-                updateClock();
-                updateAlarmsIfNeeded();
-                handler.postDelayed(this, 60000); // Update every minute
-            }
-        };
-        handler.post(updateTimeRunnable);
+    private void scheduleNextBoundary() {
+        handler.removeCallbacks(boundaryRunnable);
+        long now = System.currentTimeMillis();
+        long next = Long.MAX_VALUE;
+        if (visible) {
+            next = (now / 60000 + 1) * 60000; // clock minute
+        }
+        if (timeline != null) {
+            next = Math.min(next, timeline.getEnd());
+            int upcoming = timeline.nextIndex(now);
+            if (upcoming >= 0) next = Math.min(next, timeline.getTime(upcoming));
+            long iqamaEnd = getIqamaEnd(now);
+            if (iqamaEnd > now) next = Math.min(next, iqamaEnd);
+        }
+        if (next != Long.MAX_VALUE) {
+            handler.postDelayed(boundaryRunnable, Math.max(0, next - now));
+        }
     }
     
-    private void updateAlarmsIfNeeded() {
+    private void onBoundary() {
+        boundaryWakeups++;
+        long now = System.currentTimeMillis();
+        updateClock();
         if (currentPrayerTimes != null) {
-            AlarmAppIntegration.addPrayerAlarms(this, currentPrayerTimes);
+            rollOverDayIfNeeded(now);
+            int current = timeline.previousIndex(now);
+            if (current != highlightedIndex) {
+                // A prayer started: move the highlight; AdhanScheduler already holds the alarms
+                highlightedIndex = current;
+                updatePrayerGrid(currentPrayerTimes);
+            }
+            updateLiveCountdown();
+        }
+        scheduleNextBoundary();
+    }
+    
+    private void rollOverDayIfNeeded(long now) {
+        if (timeline != null && timeline.covers(now)) return;
+        // Past midnight: the stored row for the new day becomes today
+        PrayerTimes today = DayScheduleCache.getToday(SettingsManager.getDefaultCity());
+        if (today != null) {
+            currentPrayerTimes = TestingManager.getTestPrayerTimes(this, today);
+            updatePrayerGrid(currentPrayerTimes);
         }
+        timeline = PrayerTimeline.withToday(SettingsManager.getDefaultCity(), currentPrayerTimes);
     }
     
     private void updateClock() {
         SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm", Locale.getDefault());
-        SimpleDateFormat secondsFormat = new SimpleDateFormat("ss", Locale.getDefault());
         
         Date now = new Date();
         clockText.setText(timeFormat.format(now));
         
-        // Update countdown every second
-        handler.postDelayed(() -> updateLiveCountdown(), 1000 - Integer.parseInt(secondsFormat.format(now)));
-        
         // Format date in current language
         String formattedDate = formatDateInCurrentLanguage(now);
         dateText.setText(formattedDate);
@@ -237,22 +276,9 @@ public class MainActivity extends AppCompatActivity {
         // Apply test times if in testing mode
         this.currentPrayerTimes = TestingManager.getTestPrayerTimes(this, prayerTimes);
         
-        // Add alarms to system alarm app
-        AlarmAppIntegration.addPrayerAlarms(this, prayerTimes);
-        
-        // Fetch tomorrow's Fajr for countdown calculation
-        City defaultCity = CitiesData.getCityByName(SettingsManager.getDefaultCity());
-        if (defaultCity != null) {
-            PrayerTimesService.fetchTomorrowsFajr(defaultCity)
-                .thenAccept(fajrTime -> {
-                    tomorrowsFajr = fajrTime;
-                    android.util.Log.d("MainActivity", "Tomorrow's Fajr: " + tomorrowsFajr);
-                })
-                .exceptionally(throwable -> {
-                    tomorrowsFajr = "05:30"; // Fallback
-                    return null;
-                });
-        }
+        // Today as shown plus tomorrow's stored row, for countdowns across midnight
+        timeline = PrayerTimeline.withToday(SettingsManager.getDefaultCity(), currentPrayerTimes);
+        highlightedIndex = timeline.previousIndex(System.currentTimeMillis());
         
         // Update prayer grid with highlighting
         updatePrayerGrid(prayerTimes);
@@ -262,6 +288,7 @@ public class MainActivity extends AppCompatActivity {
         
         // Initial countdown update
         updateLiveCountdown();
+        scheduleNextBoundary();
     }
     
     private void updatePrayerGrid(PrayerTimes prayerTimes) {
@@ -287,17 +314,6 @@ public class MainActivity extends AppCompatActivity {
         }
     }
     
-    private String getTimeForPrayer(String prayer, PrayerTimes prayerTimes) {
-        switch (prayer) {
-            case "Fajr": return prayerTimes.getFajr();
-            case "Dohr": return prayerTimes.getDhuhr();
-            case "Asr": return prayerTimes.getAsr();
-            case "Maghreb": return prayerTimes.getMaghrib();
-            case "Isha": return prayerTimes.getIsha();
-            default: return "00:00";
-        }
-    }
-    
     private void showError(String error) {
         countdownText.setText("--:--:--");
         if (hijriText != null) {
@@ -322,14 +338,27 @@ public class MainActivity extends AppCompatActivity {
         
         // Reload prayer times for new city
         loadPrayerTimes();
+        
+        visible = true;
+        updateClock();
+        handler.removeCallbacks(countdownRunnable);
+        handler.post(countdownRunnable);
+        scheduleNextBoundary();
+    }
+    
+    @Override
+    protected void onPause() {
+        super.onPause();
+        visible = false;
+        handler.removeCallbacks(countdownRunnable);
+        scheduleNextBoundary();
     }
     
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        if (handler != null && updateTimeRunnable != null) {
-            handler.removeCallbacks(updateTimeRunnable);
-        }
+        handler.removeCallbacks(boundaryRunnable);
+        handler.removeCallbacks(countdownRunnable);
     }
     
 
@@ -344,7 +373,7 @@ public class MainActivity extends AppCompatActivity {
         
         // Clear current data
         currentPrayerTimes = null;
-        tomorrowsFajr = null;
+        timeline = null;
         
         // Reload everything
         loadPrayerTimes();
@@ -385,23 +414,6 @@ public class MainActivity extends AppCompatActivity {
     
 
     
-    private boolean isAfterIsha(PrayerTimes prayerTimes) {
-        java.util.Calendar now = java.util.Calendar.getInstance();
-        int currentMinutes = now.get(java.util.Calendar.HOUR_OF_DAY) * 60 + now.get(java.util.Calendar.MINUTE);
-        
-        try {
-            java.text.SimpleDateFormat format = new java.text.SimpleDateFormat("HH:mm", java.util.Locale.getDefault());
-            java.util.Date ishaTime = format.parse(prayerTimes.getIsha());
-            java.util.Calendar ishaCal = java.util.Calendar.getInstance();
-            ishaCal.setTime(ishaTime);
-            int ishaMinutes = ishaCal.get(java.util.Calendar.HOUR_OF_DAY) * 60 + ishaCal.get(java.util.Calendar.MINUTE);
-            
-            return currentMinutes >= ishaMinutes;
-        } catch (java.text.ParseException e) {
-            return false;
-        }
-    }
-    
     private String formatCountdown(long milliseconds) {
         long totalSeconds = milliseconds / 1000;
         long hours = totalSeconds / 3600;
@@ -413,77 +425,36 @@ public class MainActivity extends AppCompatActivity {
     
     private void updateLiveCountdown() {
         if (currentPrayerTimes != null) {
-            java.util.Calendar now = java.util.Calendar.getInstance();
-            int currentMinutes = now.get(java.util.Calendar.HOUR_OF_DAY) * 60 + now.get(java.util.Calendar.MINUTE);
-            int currentSeconds = now.get(java.util.Calendar.SECOND);
-            
-            String nextPrayer = PrayerHighlightManager.getNextPrayer(currentPrayerTimes);
-            String nextPrayerTime = getTimeForPrayer(nextPrayer, currentPrayerTimes);
+            long now = System.currentTimeMillis();
+            rollOverDayIfNeeded(now);
             
-            try {
-                java.text.SimpleDateFormat format = new java.text.SimpleDateFormat("HH:mm", java.util.Locale.getDefault());
-                java.util.Date prayerDate = format.parse(nextPrayerTime);
-                java.util.Calendar prayerCal = java.util.Calendar.getInstance();
-                prayerCal.setTime(prayerDate);
-                int prayerMinutes = prayerCal.get(java.util.Calendar.HOUR_OF_DAY) * 60 + prayerCal.get(java.util.Calendar.MINUTE);
-                
-                int remainingMinutes;
-                
-                // Check if we're after Isha and next prayer is Fajr (tomorrow)
-                if ("Fajr".equals(nextPrayer) && isAfterIsha(currentPrayerTimes) && tomorrowsFajr != null) {
-                    // Use tomorrow's Fajr time
-                    java.util.Date tomorrowFajrDate = format.parse(tomorrowsFajr);
-                    java.util.Calendar tomorrowFajrCal = java.util.Calendar.getInstance();
-                    tomorrowFajrCal.setTime(tomorrowFajrDate);
-                    int tomorrowFajrMinutes = tomorrowFajrCal.get(java.util.Calendar.HOUR_OF_DAY) * 60 + tomorrowFajrCal.get(java.util.Calendar.MINUTE);
-                    remainingMinutes = (24 * 60) - currentMinutes + tomorrowFajrMinutes;
-                } else if (prayerMinutes <= currentMinutes) {
-                    // Tomorrow's prayer (general case)
-                    remainingMinutes = (24 * 60) - currentMinutes + prayerMinutes;
-                } else {
-                    // Today's prayer
-                    remainingMinutes = prayerMinutes - currentMinutes;
-                }
-                
-                int hours = remainingMinutes / 60;
-                int minutes = remainingMinutes % 60;
-                int seconds = 60 - currentSeconds;
-                
-                if (seconds == 60) {
-                    seconds = 0;
-                } else if (minutes > 0) {
-                    minutes--;
-                }
-                
-                String countdown = String.format("%02d:%02d:%02d", hours, minutes, seconds);
-                countdownText.setText(countdown);
-                
-                // Update iqama countdown
-                updateIqamaCountdown(nextPrayer, remainingMinutes, seconds);
-                
-            } catch (java.text.ParseException e) {
+            int next = timeline.nextIndex(now);
+            if (next < 0) {
                 countdownText.setText("--:--:--");
                 iqamaCountdown.setText("");
+                return;
             }
+            // Round up so the countdown reaches 00:00:00 as the prayer starts, not a second early
+            countdownText.setText(formatCountdown((timeline.getTime(next) - now + 999) / 1000 * 1000));
+            updateIqamaCountdown(now);
         }
     }
     
-    private void updateIqamaCountdown(String nextPrayer, int remainingMinutes, int seconds) {
-        int iqamaDelayMinutes = SettingsManager.getIqamaDelay(nextPrayer);
-        
-        // Show iqama countdown only when prayer time has passed and within iqama delay
-        if (remainingMinutes <= 0 && Math.abs(remainingMinutes) < iqamaDelayMinutes) {
-            int iqamaRemainingMinutes = iqamaDelayMinutes + remainingMinutes;
-            int iqamaRemainingSeconds = 60 - seconds;
-            
-            if (iqamaRemainingMinutes > 0 || (iqamaRemainingMinutes == 0 && iqamaRemainingSeconds > 0)) {
-                if (iqamaRemainingSeconds == 60) {
-                    iqamaRemainingSeconds = 0;
-                } else if (iqamaRemainingMinutes > 0) {
-                    iqamaRemainingMinutes--;
-                }
-                
-                String iqamaText = TranslationManager.tr("settings_items.iqama_in") + " " + String.format("%02d:%02d", iqamaRemainingMinutes, iqamaRemainingSeconds);
+    // Iqama time of the prayer that started last, or 0 before today's Fajr
+    private long getIqamaEnd(long now) {
+        int previous = timeline.previousIndex(now);
+        if (previous < 0) return 0;
+        // Delays are stored under AlarmSchedule's keys ("dhuhr"), not the display names ("Dohr")
+        return timeline.getTime(previous) + SettingsManager.getIqamaDelay(AlarmSchedule.PRAYERS[timeline.getPrayer(previous)]) * 60 * 1000L;
+    }
+    
+    // Counts down to iqama for the prayer that started last, within its configured delay
+    private void updateIqamaCountdown(long now) {
+        long iqamaTime = getIqamaEnd(now);
+        if (iqamaTime > 0) {
+            long remainingSeconds = (iqamaTime - now + 999) / 1000;
+            if (remainingSeconds > 0) {
+                String iqamaText = TranslationManager.tr("settings_items.iqama_in") + " " + String.format("%02d:%02d", remainingSeconds / 60, remainingSeconds % 60);
                 iqamaCountdown.setText(iqamaText);
                 iqamaCountdown.setTextColor(getColor(android.R.color.holo_red_light));
                 return;
@@ -499,7 +470,7 @@ public class MainActivity extends AppCompatActivity {
         android.app.AlertDialog.Builder builder = new android.app.AlertDialog.Builder(this);
         builder.setTitle("Testing Mode - Adhan Test");
         
-        String[] options = {"Test in 5 seconds", "Test in 30 seconds", "Test in 1 minute", "Test in 5 minutes", "Check permissions", "Disable testing mode"};
+        String[] options = {"Test in 5 seconds", "Test in 30 seconds", "Test in 1 minute", "Test in 5 minutes", "Check permissions", "Data diagnostics", "Disable testing mode"};
         
         builder.setItems(options, (dialog, which) -> {
             switch (which) {
@@ -527,6 +498,9 @@ public class MainActivity extends AppCompatActivity {
                     checkAlarmPermissions();
                     break;
                 case 5:
+                    showDataDiagnostics();
+                    break;
+                case 6:
                     TestingManager.setTestingMode(this, false);
                     Toast.makeText(this, "Testing mode disabled", Toast.LENGTH_SHORT).show();
                     loadPrayerTimes();
@@ -537,19 +511,61 @@ public class MainActivity extends AppCompatActivity {
         builder.show();
     }
     
-    private void setAlarmsFromDatabase() {
-        try {
-            String cityName = SettingsManager.getDefaultCity();
-            String today = new java.text.SimpleDateFormat("yyyy-MM-dd", java.util.Locale.getDefault()).format(new java.util.Date());
+    private void showDataDiagnostics() {
+        CompletableFuture.supplyAsync(() -> {
+            StringBuilder report = new StringBuilder();
+            int horizon = SettingsManager.getRefreshHorizonDays();
+            java.util.Map<Integer, StorageManager.Coverage> coverage = StorageManager.getCoverage();
+            int today = EpochDays.today();
+            report.append("Refresh below: ").append(horizon).append(" days\n");
+            report.append("Duplicate refreshes absorbed: ").append(CrawlGuard.getAbsorbedTriggers()).append("\n");
+            int[] notifies = PrayerNotificationService.getNotifyCounts();
+            report.append("Notification posts: ").append(notifies[0]).append(" this hour, ")
+                  .append(notifies[1]).append(" last hour\n");
+            report.append("Prayer alarms: ").append(AdhanScheduler.getScheduledCount()).append(" pending, ")
+                  .append(AdhanScheduler.getAlarmCalls()).append(" set/cancel calls since start\n");
+            report.append("Screen wakeups: ").append(boundaryWakeups).append(" boundaries since launch\n");
+            report.append("Schedule cache: ").append(DayScheduleCache.getHits()).append(" hits, ")
+                  .append(DayScheduleCache.getMisses()).append(" misses\n");
+            DatabaseHelper db = DatabaseHelper.getInstance(this);
+            DatabaseWriter writer = db.getWriter();
+            report.append("Database writes: ").append(writer.getWriteCount()).append(" in ")
+                  .append(writer.getTransactionCount()).append(" transactions\n");
+            report.append("Database size: ").append(db.getDatabaseSizeBytes() / 1024).append(" KB (")
+                  .append(db.getFreeBytes() / 1024).append(" KB free), keeping ")
+                  .append(SettingsManager.getRetentionDays()).append(" past days\n");
+            for (java.util.Map.Entry<String, Integer> table : db.getTableRowCounts().entrySet()) {
+                report.append("  ").append(table.getKey()).append(": ").append(table.getValue()).append(" rows\n");
+            }
+            report.append("\n");
+            for (City city : CitiesData.getAllCities()) {
+                StorageManager.Coverage span = coverage.get(city.getId());
+                int count = span != null ? span.remainingDays(today) : 0;
+                report.append(count < horizon ? "✗ " : "✓ ")
+                      .append(city.getNameEn()).append(": ").append(count).append(" days");
+                if (span != null && span.lastResult != null && !DatabaseHelper.FETCH_OK.equals(span.lastResult)) {
+                    report.append(" (").append(span.lastResult).append(")");
+                }
+                report.append("\n");
+            }
             
-            PrayerTimes times = DatabaseHelper.getInstance(this).loadPrayerTimes(cityName, today);
-            if (times != null) {
-                AlarmAppIntegration.addPrayerAlarms(this, times);
-                android.util.Log.d("MainActivity", "Set alarms from database for today");
+            java.util.List<RefreshJobManager.CityState> job = RefreshJobManager.getStates();
+            if (!job.isEmpty()) {
+                report.append("\nUnfinished refresh job:\n");
+                for (RefreshJobManager.CityState state : job) {
+                    report.append(state.cityName).append(": ").append(state.status)
+                          .append(" (").append(state.attempts).append("/").append(RefreshJobManager.MAX_ATTEMPTS).append(")");
+                    if (state.lastError != null) report.append(" ").append(state.lastError);
+                    report.append("\n");
+                }
             }
-        } catch (Exception e) {
-            android.util.Log.e("MainActivity", "Failed to set alarms from database", e);
-        }
+            return report.toString();
+        }).thenAccept(report -> runOnUiThread(() ->
+            new android.app.AlertDialog.Builder(this)
+                .setTitle("Data Diagnostics")
+                .setMessage(report)
+                .setPositiveButton("OK", null)
+                .show()));
     }
     
     private void checkAlarmPermissions() {
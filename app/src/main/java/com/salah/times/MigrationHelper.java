@@ -18,7 +18,7 @@ public class MigrationHelper {
         File baseDir = new File(Environment.getExternalStorageDirectory(), "SalahTimes");
         
         // Migrate settings
-        migrateSettings(db, new File(baseDir, "config/settings.json"));
+        migrateSettings(new File(baseDir, "config/settings.json"));
         
         // Migrate prayer times
         migratePrayerTimes(db, new File(baseDir, "cities"));
@@ -26,7 +26,8 @@ public class MigrationHelper {
         markMigrated(context);
     }
 
-    private static void migrateSettings(DatabaseHelper db, File settingsFile) {
+    // Through SettingsManager, so its snapshot holds the values before the writer has stored them
+    private static void migrateSettings(File settingsFile) {
         try {
             if (!settingsFile.exists()) return;
             
@@ -40,19 +41,19 @@ public class MigrationHelper {
             
             JSONObject settings = new JSONObject(content.toString());
             
-            if (settings.has("default_city")) db.saveSetting("default_city", settings.getString("default_city"));
-            if (settings.has("language")) db.saveSetting("language", settings.getString("language"));
-            if (settings.has("notifications_enabled")) db.saveSetting("notifications_enabled", String.valueOf(settings.getBoolean("notifications_enabled")));
-            if (settings.has("theme")) db.saveSetting("theme", settings.getString("theme"));
-            if (settings.has("auto_update")) db.saveSetting("auto_update", String.valueOf(settings.getBoolean("auto_update")));
-            if (settings.has("adan_enabled")) db.saveSetting("adan_enabled", String.valueOf(settings.getBoolean("adan_enabled")));
+            if (settings.has("default_city")) SettingsManager.setDefaultCity(settings.getString("default_city"));
+            if (settings.has("language")) SettingsManager.setLanguage(settings.getString("language"));
+            if (settings.has("notifications_enabled")) SettingsManager.setNotificationsEnabled(settings.getBoolean("notifications_enabled"));
+            if (settings.has("theme")) SettingsManager.setTheme(settings.getString("theme"));
+            if (settings.has("auto_update")) SettingsManager.setAutoUpdate(settings.getBoolean("auto_update"));
+            if (settings.has("adan_enabled")) SettingsManager.setAdanEnabled(settings.getBoolean("adan_enabled"));
             
             if (settings.has("iqama_delays")) {
                 JSONObject iqama = settings.getJSONObject("iqama_delays");
                 String[] prayers = {"fajr", "dhuhr", "asr", "maghrib", "isha"};
                 for (String prayer : prayers) {
                     if (iqama.has(prayer)) {
-                        db.setIqamaDelay(prayer, iqama.getInt(prayer));
+                        SettingsManager.setIqamaDelay(prayer, iqama.getInt(prayer));
                     }
                 }
             }
@@ -62,7 +63,7 @@ public class MigrationHelper {
                 String[] prayers = {"fajr", "dhuhr", "asr", "maghrib", "isha"};
                 for (String prayer : prayers) {
                     if (alarms.has(prayer)) {
-                        db.setPrayerAlarmEnabled(prayer, alarms.getBoolean(prayer));
+                        SettingsManager.setPrayerAlarmEnabled(prayer, alarms.getBoolean(prayer));
                     }
                 }
             }
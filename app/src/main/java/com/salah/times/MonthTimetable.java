@@ -0,0 +1,148 @@
+package com.salah.times;
+
+import java.util.Calendar;
+import java.util.List;
+import java.util.Locale;
+
+public final class MonthTimetable {
+    public static final int FAJR = 0;
+    public static final int SUNRISE = 1;
+    public static final int DHUHR = 2;
+    public static final int ASR = 3;
+    public static final int MAGHRIB = 4;
+    public static final int ISHA = 5;
+    public static final int SLOTS = 6;
+    public static final int UNKNOWN = -1;
+
+    private final String[] dates;  // dd/MM as shown on the page, in page order
+    private final int[] minutes;   // SLOTS minute-of-day values per day, UNKNOWN when missing
+
+    private MonthTimetable(String[] dates, int[] minutes) {
+        this.dates = dates;
+        this.minutes = minutes;
+    }
+
+    public static MonthTimetable fromRows(List<TimetableRow> rows) {
+        String[] dates = new String[rows.size()];
+        int[] minutes = new int[rows.size() * SLOTS];
+        for (int i = 0; i < rows.size(); i++) {
+            TimetableRow row = rows.get(i);
+            int base = i * SLOTS;
+            dates[i] = row.getDate();
+            minutes[base + FAJR] = parseMinutes(row.getFajr());
+            minutes[base + SUNRISE] = UNKNOWN; // yabiladi doesn't publish sunrise
+            minutes[base + DHUHR] = parseMinutes(row.getDhuhr());
+            minutes[base + ASR] = parseMinutes(row.getAsr());
+            minutes[base + MAGHRIB] = parseMinutes(row.getMaghrib());
+            minutes[base + ISHA] = parseMinutes(row.getIsha());
+        }
+        return new MonthTimetable(dates, minutes);
+    }
+
+    public int size() {
+        return dates.length;
+    }
+
+    public boolean isEmpty() {
+        return dates.length == 0;
+    }
+
+    public String getDate(int day) {
+        return dates[day];
+    }
+
+    // Epoch day for the row, taking the year that puts it closest to today so a
+    // December page read in January still lands in the right year; -1 if unreadable
+    public int getEpochDay(int day, Calendar today) {
+        String date = dates[day];
+        int slash = date.indexOf('/');
+        if (slash < 1) return -1;
+        int dayOfMonth;
+        int month;
+        try {
+            dayOfMonth = Integer.parseInt(date.substring(0, slash).trim());
+            month = Integer.parseInt(date.substring(slash + 1).trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        if (dayOfMonth < 1 || dayOfMonth > 31 || month < 1 || month > 12) return -1;
+
+        int year = today.get(Calendar.YEAR);
+        int monthDelta = month - (today.get(Calendar.MONTH) + 1);
+        if (monthDelta > 6) year--;
+        else if (monthDelta < -6) year++;
+        return EpochDays.of(year, month, dayOfMonth);
+    }
+
+    public int getMinutes(int day, int slot) {
+        return minutes[day * SLOTS + slot];
+    }
+
+    public int indexOf(String ddMM) {
+        for (int i = 0; i < dates.length; i++) {
+            if (dates[i].equals(ddMM)) return i;
+        }
+        return -1;
+    }
+
+    public int indexOf(Calendar day) {
+        return indexOf(String.format(Locale.US, "%02d/%02d", day.get(Calendar.DAY_OF_MONTH), day.get(Calendar.MONTH) + 1));
+    }
+
+    // Row for today; the first row when the page doesn't list today's date
+    public int todayIndex() {
+        int index = indexOf(Calendar.getInstance());
+        return index >= 0 ? index : 0;
+    }
+
+    public int tomorrowIndex() {
+        Calendar tomorrow = Calendar.getInstance();
+        tomorrow.add(Calendar.DAY_OF_MONTH, 1);
+        int index = indexOf(tomorrow);
+        return index >= 0 ? index : todayIndex() + 1;
+    }
+
+    public String getTime(int day, int slot, String fallback) {
+        int value = getMinutes(day, slot);
+        return value == UNKNOWN ? fallback : formatMinutes(value);
+    }
+
+    public PrayerTimes toPrayerTimes(int day) {
+        return new PrayerTimes(
+            dates[day],
+            getTime(day, FAJR, "05:30"),
+            getTime(day, SUNRISE, "00:00"),
+            getTime(day, DHUHR, "13:00"),
+            getTime(day, ASR, "16:30"),
+            getTime(day, MAGHRIB, "19:00"),
+            getTime(day, ISHA, "20:30")
+        );
+    }
+
+    public static int parseMinutes(String time) {
+        if (time == null) return UNKNOWN;
+        int colon = time.indexOf(':');
+        if (colon < 1 || colon > 2 || time.length() != colon + 3) return UNKNOWN;
+        int hours = 0;
+        for (int i = 0; i < colon; i++) {
+            char c = time.charAt(i);
+            if (c < '0' || c > '9') return UNKNOWN;
+            hours = hours * 10 + (c - '0');
+        }
+        char m1 = time.charAt(colon + 1);
+        char m2 = time.charAt(colon + 2);
+        if (m1 < '0' || m1 > '5' || m2 < '0' || m2 > '9') return UNKNOWN;
+        if (hours > 23) return UNKNOWN;
+        return hours * 60 + (m1 - '0') * 10 + (m2 - '0');
+    }
+
+    public static String formatMinutes(int minutes) {
+        int hours = minutes / 60;
+        int mins = minutes % 60;
+        char[] out = {
+            (char) ('0' + hours / 10), (char) ('0' + hours % 10), ':',
+            (char) ('0' + mins / 10), (char) ('0' + mins % 10)
+        };
+        return new String(out);
+    }
+}
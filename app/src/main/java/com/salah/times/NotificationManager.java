@@ -11,6 +11,8 @@ import androidx.core.app.NotificationManagerCompat;
 
 public class NotificationManager {
     private static final String CHANNEL_ID = "prayer_times";
+    // Reminders and iqama notices use the default notification sound, not the alarm stream
+    private static final String REMINDER_CHANNEL_ID = "prayer_reminders";
     private static final int NOTIFICATION_ID = 1001;
     private Context context;
     private android.app.NotificationManager notificationManager;
@@ -19,10 +21,11 @@ public class NotificationManager {
         this.context = context;
         this.notificationManager = (android.app.NotificationManager) 
             context.getSystemService(Context.NOTIFICATION_SERVICE);
-        createNotificationChannel();
+        createNotificationChannel(notificationManager);
     }
     
-    private void createNotificationChannel() {
+    // Alarms can fire before anything else in the process has created the channel
+    private static void createNotificationChannel(android.app.NotificationManager notificationManager) {
         NotificationChannel channel = new NotificationChannel(
             CHANNEL_ID,
             "Prayer Times",
@@ -34,6 +37,16 @@ public class NotificationManager {
         notificationManager.createNotificationChannel(channel);
     }
     
+    private static void createReminderChannel(android.app.NotificationManager notificationManager) {
+        NotificationChannel channel = new NotificationChannel(
+            REMINDER_CHANNEL_ID,
+            "Prayer Reminders",
+            android.app.NotificationManager.IMPORTANCE_DEFAULT
+        );
+        channel.setDescription("Reminders before prayers and iqama notices");
+        notificationManager.createNotificationChannel(channel);
+    }
+    
     public void showPrayerNotification(String prayerName, String time) {
         Intent intent = new Intent(context, MainActivity.class);
         PendingIntent pendingIntent = PendingIntent.getActivity(
@@ -59,6 +72,7 @@ public class NotificationManager {
     public static void showAdhanNotification(Context context, String prayer) {
         android.app.NotificationManager notificationManager = 
             (android.app.NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+        createNotificationChannel(notificationManager);
         
         Intent intent = new Intent(context, MainActivity.class);
         PendingIntent pendingIntent = PendingIntent.getActivity(
@@ -75,4 +89,40 @@ public class NotificationManager {
         
         notificationManager.notify(2000 + prayer.hashCode(), builder.build());
     }
+    
+    public static void showReminderNotification(Context context, String prayer, int minutes) {
+        showPrayerEvent(context, prayer, 3000,
+            "⏰ " + capitalize(prayer) + " in " + minutes + " min",
+            capitalize(prayer) + " prayer is coming up");
+    }
+    
+    public static void showIqamaNotification(Context context, String prayer) {
+        showPrayerEvent(context, prayer, 4000,
+            "🕌 Iqama - " + capitalize(prayer),
+            "Iqama for " + prayer + " prayer");
+    }
+    
+    private static void showPrayerEvent(Context context, String prayer, int idBase, String title, String text) {
+        android.app.NotificationManager notificationManager = 
+            (android.app.NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+        createReminderChannel(notificationManager);
+        
+        Intent intent = new Intent(context, MainActivity.class);
+        PendingIntent pendingIntent = PendingIntent.getActivity(
+            context, 0, intent, PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+        
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, REMINDER_CHANNEL_ID)
+            .setSmallIcon(android.R.drawable.ic_dialog_info)
+            .setContentTitle(title)
+            .setContentText(text)
+            .setPriority(NotificationCompat.PRIORITY_DEFAULT)
+            .setAutoCancel(true)
+            .setContentIntent(pendingIntent);
+        
+        notificationManager.notify(idBase + prayer.hashCode(), builder.build());
+    }
+    
+    private static String capitalize(String prayer) {
+        return prayer.substring(0, 1).toUpperCase() + prayer.substring(1);
+    }
 }
\ No newline at end of file
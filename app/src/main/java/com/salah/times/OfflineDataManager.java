@@ -4,10 +4,6 @@ import android.content.Context;
 import android.net.ConnectivityManager;
 import android.net.NetworkInfo;
 import android.util.Log;
-import org.json.JSONObject;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
 
 public class OfflineDataManager {
     private static final String TAG = "OfflineDataManager";
@@ -36,8 +32,7 @@ public class OfflineDataManager {
             
             PrayerTimes times = PrayerTimesService.fetchPrayerTimes(city).get();
             if (times != null) {
-                savePrayerTimesToStorage(cityName, times);
-                storageManager.updateLastUpdateTime();
+                // fetchPrayerTimes already stored the month and its coverage
                 Log.d(TAG, "Updated online data for " + cityName);
             }
             return times;
@@ -49,10 +44,10 @@ public class OfflineDataManager {
     
     private PrayerTimes getOfflinePrayerTimes(String cityName) {
         try {
-            JSONObject data = storageManager.loadCityData(cityName);
-            if (data != null) {
+            PrayerTimes times = storageManager.loadTodayPrayerTimes(cityName);
+            if (times != null) {
                 Log.d(TAG, "Loaded offline data for " + cityName);
-                return parsePrayerTimesFromJson(data);
+                return times;
             } else {
                 Log.w(TAG, "No offline data available for " + cityName);
                 return null;
@@ -63,50 +58,16 @@ public class OfflineDataManager {
         }
     }
     
-    private void savePrayerTimesToStorage(String cityName, PrayerTimes times) {
-        try {
-            JSONObject data = new JSONObject();
-            data.put("city", cityName);
-            data.put("date", times.getDate());
-            data.put("last_updated", getCurrentDate());
-            
-            JSONObject prayerData = new JSONObject();
-            prayerData.put("fajr", times.getFajr());
-            prayerData.put("sunrise", times.getSunrise());
-            prayerData.put("dhuhr", times.getDhuhr());
-            prayerData.put("asr", times.getAsr());
-            prayerData.put("maghrib", times.getMaghrib());
-            prayerData.put("isha", times.getIsha());
-            
-            data.put("prayer_times", prayerData);
-            storageManager.saveCityData(cityName, data);
-        } catch (Exception e) {
-            Log.e(TAG, "Error saving prayer times", e);
-        }
-    }
-    
-    private PrayerTimes parsePrayerTimesFromJson(JSONObject data) {
-        try {
-            JSONObject prayerData = data.getJSONObject("prayer_times");
-            String date = data.optString("date", getCurrentDate());
-            return new PrayerTimes(
-                date,
-                prayerData.getString("fajr"),
-                prayerData.getString("sunrise"),
-                prayerData.getString("dhuhr"),
-                prayerData.getString("asr"),
-                prayerData.getString("maghrib"),
-                prayerData.getString("isha")
-            );
-        } catch (Exception e) {
-            Log.e(TAG, "Error parsing JSON data", e);
-            return null;
-        }
-    }
-    
     private boolean shouldUpdate(String cityName) {
         return !storageManager.hasCityData(cityName) || 
-               storageManager.isDataExpired(cityName);
+               isDataExpired(cityName);
+    }
+    
+    // True while the city's stored days run out within the refresh horizon
+    private boolean isDataExpired(String cityName) {
+        City city = CitiesData.findCityByName(cityName);
+        return city == null || !StorageManager.getCitiesNeedingRefresh(
+            java.util.Collections.singletonList(city), SettingsManager.getRefreshHorizonDays()).isEmpty();
     }
     
     private boolean isOnline() {
@@ -116,16 +77,11 @@ public class OfflineDataManager {
         return netInfo != null && netInfo.isConnectedOrConnecting();
     }
     
-    private String getCurrentDate() {
-        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-        return sdf.format(new Date());
-    }
-    
     public String getDataStatus(String cityName) {
         if (isOnline()) {
             return "📶 Online";
         } else if (storageManager.hasCityData(cityName)) {
-            if (storageManager.isDataExpired(cityName)) {
+            if (isDataExpired(cityName)) {
                 return "📶 Offline - Data expired";
             } else {
                 return "📶 Offline - Data available";
@@ -1,26 +1,55 @@
 package com.salah.times;
 
+import android.app.AlarmManager;
 import android.app.Notification;
 import android.app.NotificationChannel;
 import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.app.Service;
+import android.content.BroadcastReceiver;
+import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Build;
 import android.os.Handler;
 import android.os.IBinder;
+import android.os.SystemClock;
 import android.widget.RemoteViews;
 import androidx.core.app.NotificationCompat;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
-import java.util.Date;
-import java.util.Locale;
 
 public class PrayerNotificationService extends Service {
     private static final String CHANNEL_ID = "prayer_persistent";
     private static final int NOTIFICATION_ID = 1000;
+    private static final long RETRY_MS = 60 * 1000;
+    private static final String ACTION_BOUNDARY = "com.salah.times.NOTIFICATION_BOUNDARY";
     private Handler handler = new Handler();
     private Runnable updateRunnable;
-    private PrayerTimes currentPrayerTimes;
+    private PrayerTimeline timeline;
+    // Wall-clock time the notification next goes stale
+    private long boundaryAt = 0;
+    // Re-post on the next main-loop turn, after setLanguage has switched TranslationManager too
+    private final SettingsManager.OnSettingChangedListener settingListener = (key, value) -> handler.post(() -> {
+        PrayerTimeline.invalidate();
+        rescheduleNow();
+    });
+    // The handler's uptime clock stops in deep sleep, so the screen coming on catches up on a
+    // boundary the RTC alarm hasn't delivered yet, and clock or zone changes rebuild the day
+    private final BroadcastReceiver wakeReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            if (Intent.ACTION_SCREEN_ON.equals(intent.getAction())) {
+                if (System.currentTimeMillis() >= boundaryAt) rescheduleNow();
+            } else {
+                PrayerTimeline.invalidate();
+                rescheduleNow();
+            }
+        }
+    };
+    
+    // notify() calls in the current and previous clock hour
+    private static long notifyHour = 0;
+    private static int notifiesThisHour = 0;
+    private static int notifiesLastHour = 0;
     
     @Override
     public void onCreate() {
@@ -28,6 +57,24 @@ public class PrayerNotificationService extends Service {
         createNotificationChannel();
         startForegroundService();
         startPeriodicUpdates();
+        SettingsManager.addListener(SettingsManager.KEY_DEFAULT_CITY, settingListener);
+        SettingsManager.addListener(SettingsManager.KEY_LANGUAGE, settingListener);
+        IntentFilter filter = new IntentFilter(Intent.ACTION_SCREEN_ON);
+        filter.addAction(Intent.ACTION_TIME_CHANGED);
+        filter.addAction(Intent.ACTION_TIMEZONE_CHANGED);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
+            registerReceiver(wakeReceiver, filter, Context.RECEIVER_NOT_EXPORTED);
+        } else {
+            registerReceiver(wakeReceiver, filter);
+        }
+    }
+    
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        if (intent != null && ACTION_BOUNDARY.equals(intent.getAction())) {
+            rescheduleNow();
+        }
+        return START_STICKY;
     }
     
     private void createNotificationChannel() {
@@ -47,22 +94,57 @@ public class PrayerNotificationService extends Service {
     }
     
     private void startForegroundService() {
+        loadCurrentPrayerTimes();
         Notification notification = createPrayerNotification();
         startForeground(NOTIFICATION_ID, notification);
     }
     
+    // The chronometer counts down on its own; the notification is only rebuilt when the next
+    // prayer changes, at midnight, or when the city or language does
     private void startPeriodicUpdates() {
-        loadCurrentPrayerTimes();
-        updateRunnable = new Runnable() {
-            @Override
-            public void run() {
-                updateNotification();
-                handler.postDelayed(this, 1000); // Update every second for countdown
-            }
+        updateRunnable = () -> {
+            updateNotification();
+            scheduleBoundary();
         };
+        scheduleBoundary();
+    }
+    
+    private void rescheduleNow() {
+        handler.removeCallbacks(updateRunnable);
         handler.post(updateRunnable);
     }
     
+    // The handler covers the awake case; the RTC alarm is delivered on the first wake after the
+    // boundary even if the device slept through it, when uptimeMillis had stopped
+    private void scheduleBoundary() {
+        long delay = delayToNextBoundary();
+        boundaryAt = System.currentTimeMillis() + delay;
+        handler.removeCallbacks(updateRunnable);
+        handler.postDelayed(updateRunnable, delay);
+        
+        AlarmManager alarmManager = getSystemService(AlarmManager.class);
+        PendingIntent intent = boundaryIntent();
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.S || alarmManager.canScheduleExactAlarms()) {
+            alarmManager.setExact(AlarmManager.RTC, boundaryAt, intent);
+        } else {
+            alarmManager.set(AlarmManager.RTC, boundaryAt, intent);
+        }
+    }
+    
+    private PendingIntent boundaryIntent() {
+        Intent intent = new Intent(this, PrayerNotificationService.class).setAction(ACTION_BOUNDARY);
+        return PendingIntent.getService(this, 0, intent, PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+    }
+    
+    private long delayToNextBoundary() {
+        if (timeline == null) return RETRY_MS;
+        long now = System.currentTimeMillis();
+        long next = timeline.getEnd();
+        int upcoming = timeline.nextIndex(now);
+        if (upcoming >= 0) next = Math.min(next, timeline.getTime(upcoming));
+        return Math.max(0, next - now);
+    }
+    
     private Notification createPrayerNotification() {
         Intent intent = new Intent(this, MainActivity.class);
         PendingIntent pendingIntent = PendingIntent.getActivity(
@@ -70,20 +152,25 @@ public class PrayerNotificationService extends Service {
         
         RemoteViews customView = new RemoteViews(getPackageName(), R.layout.notification_prayer);
         
-        String nextPrayer = getNextPrayerName();
-        String nextTime = getNextPrayerTime();
-        String countdown = getCountdownToNextPrayer();
-        
         customView.setTextViewText(R.id.next_prayer_label, TranslationManager.tr("next_prayer"));
-        customView.setTextViewText(R.id.next_prayer_name, nextPrayer);
-        customView.setTextViewText(R.id.next_prayer_time, nextTime);
-        customView.setTextViewText(R.id.countdown, countdown);
+        customView.setTextViewText(R.id.next_prayer_name, getNextPrayerName());
+        customView.setTextViewText(R.id.next_prayer_time, getNextPrayerTime());
+        int next = nextIndex();
+        if (next >= 0) {
+            // Chronometer bases are on the elapsedRealtime clock
+            long base = SystemClock.elapsedRealtime() + timeline.getTime(next) - System.currentTimeMillis();
+            customView.setChronometer(R.id.countdown, base, null, true);
+            customView.setChronometerCountDown(R.id.countdown, true);
+        } else {
+            customView.setChronometer(R.id.countdown, SystemClock.elapsedRealtime(), "--:--:--", false);
+        }
         
         Notification notification = new Notification.Builder(this, CHANNEL_ID)
             .setSmallIcon(R.drawable.ic_notification)
             .setCustomContentView(customView)
             .setContentIntent(pendingIntent)
             .setOngoing(true)
+            .setOnlyAlertOnce(true)
             .setShowWhen(false)
             .setPriority(Notification.PRIORITY_MAX)
             .build();
@@ -100,72 +187,48 @@ public class PrayerNotificationService extends Service {
         Notification notification = createPrayerNotification();
         NotificationManager manager = getSystemService(NotificationManager.class);
         manager.notify(NOTIFICATION_ID, notification);
+        countNotify();
+    }
+    
+    private static synchronized void countNotify() {
+        long hour = System.currentTimeMillis() / (60 * 60 * 1000);
+        if (hour != notifyHour) {
+            notifiesLastHour = hour == notifyHour + 1 ? notifiesThisHour : 0;
+            notifiesThisHour = 0;
+            notifyHour = hour;
+        }
+        notifiesThisHour++;
+    }
+    
+    // {this hour, previous hour}
+    public static synchronized int[] getNotifyCounts() {
+        long hour = System.currentTimeMillis() / (60 * 60 * 1000);
+        if (hour == notifyHour) return new int[]{notifiesThisHour, notifiesLastHour};
+        return new int[]{0, hour == notifyHour + 1 ? notifiesThisHour : 0};
     }
     
     private void loadCurrentPrayerTimes() {
         try {
-            String cityName = SettingsManager.getDefaultCity();
-            String today = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(new Date());
-            currentPrayerTimes = DatabaseHelper.getInstance(this).loadPrayerTimes(cityName, today);
+            timeline = PrayerTimeline.forCity(SettingsManager.getDefaultCity());
         } catch (Exception e) {
             android.util.Log.e("PrayerNotification", "Failed to load prayer times", e);
         }
     }
     
-    private String getNextPrayerName() {
-        if (currentPrayerTimes == null) return TranslationManager.tr("loading");
-        String nextPrayer = PrayerHighlightManager.getNextPrayer(currentPrayerTimes);
-        return TranslationManager.tr("prayers." + nextPrayer.toLowerCase());
+    // Next event on the two-day timeline, -1 when nothing is stored
+    private int nextIndex() {
+        return timeline != null ? timeline.nextIndex(System.currentTimeMillis()) : -1;
     }
     
-    private String getNextPrayerTime() {
-        if (currentPrayerTimes == null) return "--:--";
-        String nextPrayer = PrayerHighlightManager.getNextPrayer(currentPrayerTimes);
-        return getTimeForPrayer(nextPrayer);
-    }
-    
-    private String getTimeForPrayer(String prayer) {
-        switch (prayer) {
-            case "Fajr": return currentPrayerTimes.getFajr();
-            case "Dhuhr": case "Dohr": return currentPrayerTimes.getDhuhr();
-            case "Asr": return currentPrayerTimes.getAsr();
-            case "Maghrib": case "Maghreb": return currentPrayerTimes.getMaghrib();
-            case "Isha": return currentPrayerTimes.getIsha();
-            default: return "--:--";
-        }
+    private String getNextPrayerName() {
+        int next = nextIndex();
+        if (next < 0) return TranslationManager.tr("loading");
+        return TranslationManager.tr("prayers." + timeline.getName(next).toLowerCase());
     }
     
-    private String getCountdownToNextPrayer() {
-        if (currentPrayerTimes == null) return "--:--:--";
-        
-        try {
-            Calendar now = Calendar.getInstance();
-            int currentMinutes = now.get(Calendar.HOUR_OF_DAY) * 60 + now.get(Calendar.MINUTE);
-            int currentSeconds = now.get(Calendar.SECOND);
-            
-            String nextPrayer = PrayerHighlightManager.getNextPrayer(currentPrayerTimes);
-            String nextTime = getTimeForPrayer(nextPrayer);
-            
-            String[] parts = nextTime.split(":");
-            int prayerMinutes = Integer.parseInt(parts[0]) * 60 + Integer.parseInt(parts[1]);
-            
-            int remainingMinutes = prayerMinutes - currentMinutes;
-            if (remainingMinutes < 0) remainingMinutes += 24 * 60;
-            
-            int hours = remainingMinutes / 60;
-            int minutes = remainingMinutes % 60;
-            int seconds = 60 - currentSeconds;
-            
-            if (seconds == 60) {
-                seconds = 0;
-            } else if (minutes > 0) {
-                minutes--;
-            }
-            
-            return String.format(Locale.getDefault(), "%02d:%02d:%02d", hours, minutes, seconds);
-        } catch (Exception e) {
-            return "--:--:--";
-        }
+    private String getNextPrayerTime() {
+        int next = nextIndex();
+        return next < 0 ? "--:--" : timeline.getClock(next);
     }
     
     @Override
@@ -176,6 +239,10 @@ public class PrayerNotificationService extends Service {
     @Override
     public void onDestroy() {
         super.onDestroy();
+        SettingsManager.removeListener(SettingsManager.KEY_DEFAULT_CITY, settingListener);
+        SettingsManager.removeListener(SettingsManager.KEY_LANGUAGE, settingListener);
+        unregisterReceiver(wakeReceiver);
+        getSystemService(AlarmManager.class).cancel(boundaryIntent());
         if (handler != null && updateRunnable != null) {
             handler.removeCallbacks(updateRunnable);
         }
@@ -0,0 +1,73 @@
+package com.salah.times;
+
+import java.util.TimeZone;
+
+// One day's five prayers as minute-of-day offsets. Built once per PrayerTimes and then
+// queried every second by the UI and the notification, so lookups don't allocate.
+public final class PrayerSchedule {
+    public static final String[] NAMES = {"Fajr", "Dohr", "Asr", "Maghreb", "Isha"};
+    public static final int COUNT = 5;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final int[] minutes;
+    private final TimeZone zone;
+
+    private PrayerSchedule(int[] minutes, TimeZone zone) {
+        this.minutes = minutes;
+        this.zone = zone;
+    }
+
+    // PrayerTimes builds its schedule once, so every holder of that day shares the parse
+    static PrayerSchedule parse(String... times) {
+        int[] minutes = new int[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            int parsed = MonthTimetable.parseMinutes(times[i]);
+            minutes[i] = parsed == MonthTimetable.UNKNOWN ? 0 : parsed; // same fallback as before for bad times
+        }
+        return new PrayerSchedule(minutes, TimeZone.getDefault());
+    }
+
+    public int getMinutes(int prayer) {
+        return minutes[prayer];
+    }
+
+    // Local minute of the day for a wall-clock instant, in the zone the schedule was built in
+    public int minuteOfDay(long millis) {
+        long local = millis + zone.getOffset(millis);
+        return (int) Math.floorMod(local / 60000, (long) MINUTES_PER_DAY);
+    }
+
+    // Number of prayers whose time has been reached
+    private int passed(int now) {
+        int count = 0;
+        for (int i = 0; i < COUNT; i++) {
+            count += minutes[i] <= now ? 1 : 0;
+        }
+        return count;
+    }
+
+    // Index of the prayer in progress, -1 between midnight and Fajr
+    public int currentIndex(int now) {
+        return passed(now) - 1;
+    }
+
+    // Index of the coming prayer; after Isha that is tomorrow's Fajr
+    public int nextIndex(int now) {
+        int passed = passed(now);
+        return passed < COUNT ? passed : 0;
+    }
+
+    public int minutesUntilNext(int now) {
+        int passed = passed(now);
+        return passed < COUNT ? minutes[passed] - now : MINUTES_PER_DAY - now + minutes[0];
+    }
+
+    public String getCurrentPrayer(int now) {
+        int index = currentIndex(now);
+        return index >= 0 ? NAMES[index] : null;
+    }
+
+    public String getNextPrayer(int now) {
+        return NAMES[nextIndex(now)];
+    }
+}
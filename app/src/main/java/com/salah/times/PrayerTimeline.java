@@ -0,0 +1,148 @@
+package com.salah.times;
+
+import java.util.Calendar;
+
+// Today's and tomorrow's prayers as epoch-millis events, read from storage, so "next prayer"
+// after Isha is tomorrow's real Fajr and countdowns stay right across midnight.
+public final class PrayerTimeline {
+    public static final int DAYS = 2;
+    public static final int EVENTS = DAYS * PrayerSchedule.COUNT;
+    private static final int[] SLOTS = {
+        MonthTimetable.FAJR, MonthTimetable.DHUHR, MonthTimetable.ASR, MonthTimetable.MAGHRIB, MonthTimetable.ISHA
+    };
+
+    private static PrayerTimeline cached;
+
+    private final String cityName;
+    private final int firstDay;
+    private final int[] minutes;  // minute of day per event
+    private final long[] times;   // epoch millis per event, ascending
+    private final long start;     // local midnight starting the first day
+    private final long end;       // and the one ending it
+
+    private PrayerTimeline(String cityName, int firstDay, int[] minutes, long[] times, long start, long end) {
+        this.cityName = cityName;
+        this.firstDay = firstDay;
+        this.minutes = minutes;
+        this.times = times;
+        this.start = start;
+        this.end = end;
+    }
+
+    // Built once per city and day; null when today isn't stored for the city
+    public static synchronized PrayerTimeline forCity(String cityName) {
+        Calendar midnight = startOfToday();
+        int today = EpochDays.of(midnight);
+        if (cached != null && cached.firstDay == today && cached.cityName.equals(cityName)) return cached;
+
+        City city = CitiesData.findCityByName(cityName);
+        if (city == null) return null;
+        short[] stored = StorageManager.loadRange(city, today, today + DAYS - 1, null);
+        int[] minutes = new int[EVENTS];
+        for (int day = 0; day < DAYS; day++) {
+            for (int i = 0; i < PrayerSchedule.COUNT; i++) {
+                minutes[day * PrayerSchedule.COUNT + i] = stored[day * MonthTimetable.SLOTS + SLOTS[i]];
+            }
+        }
+        if (minutes[0] == MonthTimetable.UNKNOWN) return null;
+        if (minutes[PrayerSchedule.COUNT] == MonthTimetable.UNKNOWN) {
+            // Tomorrow not stored yet (end of the fetched month); today's times are off by a minute or two at most
+            System.arraycopy(minutes, 0, minutes, PrayerSchedule.COUNT, PrayerSchedule.COUNT);
+        }
+        cached = build(cityName, today, midnight, minutes);
+        return cached;
+    }
+
+    // Timeline whose first day uses the given times (testing mode overrides them) and whose
+    // second day comes from storage
+    public static PrayerTimeline withToday(String cityName, PrayerTimes today) {
+        int[] minutes = new int[EVENTS];
+        String[] values = {today.getFajr(), today.getDhuhr(), today.getAsr(), today.getMaghrib(), today.getIsha()};
+        for (int i = 0; i < PrayerSchedule.COUNT; i++) {
+            int parsed = MonthTimetable.parseMinutes(values[i]);
+            minutes[i] = parsed == MonthTimetable.UNKNOWN ? 0 : parsed;
+        }
+        PrayerTimeline stored = forCity(cityName);
+        for (int i = 0; i < PrayerSchedule.COUNT; i++) {
+            minutes[PrayerSchedule.COUNT + i] = stored != null ? stored.minutes[PrayerSchedule.COUNT + i] : minutes[i];
+        }
+        Calendar midnight = startOfToday();
+        return build(cityName, EpochDays.of(midnight), midnight, minutes);
+    }
+
+    public static synchronized void invalidate() {
+        cached = null;
+    }
+
+    private static PrayerTimeline build(String cityName, int firstDay, Calendar midnight, int[] minutes) {
+        long[] times = new long[EVENTS];
+        Calendar day = (Calendar) midnight.clone();
+        long end = 0;
+        for (int d = 0; d < DAYS; d++) {
+            for (int i = 0; i < PrayerSchedule.COUNT; i++) {
+                int index = d * PrayerSchedule.COUNT + i;
+                Calendar event = (Calendar) day.clone();
+                event.set(Calendar.HOUR_OF_DAY, minutes[index] / 60);
+                event.set(Calendar.MINUTE, minutes[index] % 60);
+                times[index] = event.getTimeInMillis();
+            }
+            day.add(Calendar.DAY_OF_MONTH, 1);
+            if (d == 0) end = day.getTimeInMillis();
+        }
+        return new PrayerTimeline(cityName, firstDay, minutes, times, midnight.getTimeInMillis(), end);
+    }
+
+    private static Calendar startOfToday() {
+        Calendar midnight = Calendar.getInstance();
+        midnight.set(Calendar.HOUR_OF_DAY, 0);
+        midnight.set(Calendar.MINUTE, 0);
+        midnight.set(Calendar.SECOND, 0);
+        midnight.set(Calendar.MILLISECOND, 0);
+        return midnight;
+    }
+
+    // False once the clock has moved past the first day; build a new one then
+    public boolean covers(long now) {
+        return now >= start && now < end;
+    }
+
+    // First event after now, or -1 once both days are over
+    public int nextIndex(long now) {
+        for (int i = 0; i < EVENTS; i++) {
+            if (times[i] > now) return i;
+        }
+        return -1;
+    }
+
+    // Last event at or before now, or -1 before today's Fajr
+    public int previousIndex(long now) {
+        int next = nextIndex(now);
+        return next < 0 ? EVENTS - 1 : next - 1;
+    }
+
+    // Local midnight after the first day
+    public long getEnd() {
+        return end;
+    }
+
+    public long getTime(int index) {
+        return times[index];
+    }
+
+    // Index into PrayerSchedule.NAMES / AlarmSchedule.PRAYERS
+    public int getPrayer(int index) {
+        return index % PrayerSchedule.COUNT;
+    }
+
+    public String getName(int index) {
+        return PrayerSchedule.NAMES[getPrayer(index)];
+    }
+
+    public String getClock(int index) {
+        return MonthTimetable.formatMinutes(minutes[index]);
+    }
+
+    public boolean isTomorrow(int index) {
+        return index >= PrayerSchedule.COUNT;
+    }
+}
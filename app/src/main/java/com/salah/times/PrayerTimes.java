@@ -3,18 +3,26 @@ package com.salah.times;
 import java.util.ArrayList;
 import java.util.List;
 
-public class PrayerTimes {
-    private String date;
-    private String fajr;
-    private String sunrise;
-    private String dhuhr;
-    private String asr;
-    private String maghrib;
-    private String isha;
-    private String chorok; // Calculated sunrise
+// Immutable: DayScheduleCache hands the same instance to every caller along with its parsed
+// schedule, so a changed day has to be a new object
+public final class PrayerTimes {
+    private final String date;
+    private final String fajr;
+    private final String sunrise;
+    private final String dhuhr;
+    private final String asr;
+    private final String maghrib;
+    private final String isha;
+    private final String chorok; // Calculated sunrise
+    private final PrayerSchedule schedule;
     
     public PrayerTimes(String date, String fajr, String sunrise, String dhuhr, 
                       String asr, String maghrib, String isha) {
+        this(date, fajr, sunrise, dhuhr, asr, maghrib, isha, null);
+    }
+
+    private PrayerTimes(String date, String fajr, String sunrise, String dhuhr,
+                        String asr, String maghrib, String isha, String chorok) {
         this.date = date;
         this.fajr = fajr;
         this.sunrise = sunrise;
@@ -22,6 +30,8 @@ public class PrayerTimes {
         this.asr = asr;
         this.maghrib = maghrib;
         this.isha = isha;
+        this.chorok = chorok;
+        this.schedule = PrayerSchedule.parse(fajr, dhuhr, asr, maghrib, isha);
     }
     
     // Getters
@@ -33,9 +43,11 @@ public class PrayerTimes {
     public String getMaghrib() { return maghrib; }
     public String getIsha() { return isha; }
     public String getChorok() { return chorok != null ? chorok : sunrise; }
+    public PrayerSchedule getSchedule() { return schedule; }
     
-    // Setters
-    public void setChorok(String chorok) { this.chorok = chorok; }
+    public PrayerTimes withChorok(String chorok) {
+        return new PrayerTimes(date, fajr, sunrise, dhuhr, asr, maghrib, isha, chorok);
+    }
     
     public List<Prayer> getPrayerList() {
         List<Prayer> prayers = new ArrayList<>();
@@ -48,9 +60,9 @@ public class PrayerTimes {
     }
     
     public static class Prayer {
-        private String name;
-        private String time;
-        private String icon;
+        private final String name;
+        private final String time;
+        private final String icon;
         
         public Prayer(String name, String time, String icon) {
             this.name = name;
@@ -1,133 +1,41 @@
 package com.salah.times;
 
 import android.util.Log;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
 import java.io.IOException;
 import java.util.concurrent.CompletableFuture;
-import org.json.JSONObject;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
 
 public class PrayerTimesService {
     private static final String TAG = "PrayerTimesService";
-    private static final String BASE_URL = "https://www.yabiladi.com/prieres/details/";
+    private static final double CRAWL_REQUESTS_PER_SECOND = 2.0;
+    private static final int CRAWL_BURST = 4;
 
     public static CompletableFuture<PrayerTimes> fetchPrayerTimes(City city) {
         return CompletableFuture.supplyAsync(() -> {
             // First try to load from cache
-            JSONObject cachedData = StorageManager.loadCityData(city.getNameEn());
-            if (cachedData != null) {
-                try {
-                    String today = new SimpleDateFormat("dd/MM", Locale.getDefault()).format(new Date());
-                    JSONObject prayerTimes = cachedData.getJSONObject("prayer_times");
-                    if (prayerTimes.has(today)) {
-                        JSONObject todayPrayers = prayerTimes.getJSONObject(today);
-                        PrayerTimes prayers = new PrayerTimes(
-                            todayPrayers.getString("Date"),
-                            todayPrayers.getString("Fajr"),
-                            "00:00",
-                            todayPrayers.getString("Dohr"),
-                            todayPrayers.getString("Asr"),
-                            todayPrayers.getString("Maghreb"),
-                            todayPrayers.getString("Isha")
-                        );
-                        Log.d(TAG, "Loaded from cache: " + city.getNameEn());
-                        
-                        // Start background update if needed
-                        checkAndUpdateAllCitiesInBackground();
-                        return prayers;
-                    }
-                } catch (Exception e) {
-                    Log.w(TAG, "Cache load failed, fetching from web");
-                }
+            PrayerTimes cached = StorageManager.loadTodayPrayerTimes(city.getNameEn());
+            if (cached != null) {
+                Log.d(TAG, "Loaded from cache: " + city.getNameEn());
+                return cached;
             }
             
             try {
-                String url = BASE_URL + city.getId() + "/city.html";
-                Log.d(TAG, "Fetching prayer times from: " + url);
-                
-                Document doc = Jsoup.connect(url)
-                    .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36")
-                    .timeout(10000)
-                    .get();
-
-                // Find prayer times table
-                Elements tables = doc.select("table");
-                Log.d(TAG, "Found " + tables.size() + " tables");
-                
-                Element prayerTable = null;
-                for (Element table : tables) {
-                    Elements rows = table.select("tr");
-                    if (rows.size() > 1) {
-                        Elements firstRowCells = rows.get(1).select("td");
-                        if (firstRowCells.size() >= 5) {
-                            prayerTable = table;
-                            break;
-                        }
-                    }
-                }
-                
-                if (prayerTable == null) {
+                // Shared with any concurrent fetch of the same city page
+                CityPage page = CityPageLoader.loadNow(city);
+                MonthTimetable timetable = page.getTimetable();
+                if (timetable.isEmpty()) {
                     throw new RuntimeException("No suitable prayer times table found");
                 }
                 
-                Elements rows = prayerTable.select("tr");
-                if (rows.size() < 2) {
-                    throw new RuntimeException("Table has no data rows");
-                }
-                
-                // Use first data row (today's times)
-                Elements cells = rows.get(1).select("td");
-                Log.d(TAG, "Using first data row with " + cells.size() + " cells");
-                
-                // Log all cell contents for debugging
-                for (int i = 0; i < cells.size(); i++) {
-                    Log.d(TAG, "Cell " + i + ": " + cells.get(i).text().trim());
-                }
-                
-                // Extract prayer times - Date, Fajr, Dohr, Asr, Maghreb, Isha
-                String date = cells.size() > 0 ? cells.get(0).text().trim() : getCurrentDate();
-                String fajr = cells.size() > 1 ? cells.get(1).text().trim() : "05:30";
-                String dohr = cells.size() > 2 ? cells.get(2).text().trim() : "13:00";
-                String asr = cells.size() > 3 ? cells.get(3).text().trim() : "16:30";
-                String maghreb = cells.size() > 4 ? cells.get(4).text().trim() : "19:00";
-                String isha = cells.size() > 5 ? cells.get(5).text().trim() : "20:30";
-                
-                Log.d(TAG, "Extracted times - Date: " + date + ", Fajr: " + fajr + ", Dohr: " + dohr + ", Asr: " + asr + ", Maghreb: " + maghreb + ", Isha: " + isha);
-                
-                // Validate times
-                if (!isValidTime(fajr)) {
-                    Log.w(TAG, "Invalid Fajr time: " + fajr);
-                    fajr = "05:30";
-                }
-                if (!isValidTime(dohr)) {
-                    Log.w(TAG, "Invalid Dohr time: " + dohr);
-                    dohr = "13:00";
-                }
-                if (!isValidTime(asr)) {
-                    Log.w(TAG, "Invalid Asr time: " + asr);
-                    asr = "16:30";
-                }
-                if (!isValidTime(maghreb)) {
-                    Log.w(TAG, "Invalid Maghreb time: " + maghreb);
-                    maghreb = "19:00";
-                }
-                if (!isValidTime(isha)) {
-                    Log.w(TAG, "Invalid Isha time: " + isha);
-                    isha = "20:30";
-                }
+                // Today's row; missing or invalid times fall back to defaults
+                PrayerTimes result = timetable.toPrayerTimes(timetable.todayIndex());
+                Log.d(TAG, "Extracted times - Date: " + result.getDate() + ", Fajr: " + result.getFajr() + ", Dohr: " + result.getDhuhr()
+                    + ", Asr: " + result.getAsr() + ", Maghreb: " + result.getMaghrib() + ", Isha: " + result.getIsha());
 
                 // Save full month data to storage
-                saveFullMonthData(doc, city.getNameEn());
-                
-                // Start background update if needed
-                checkAndUpdateAllCitiesInBackground();
+                if (saveFullMonthData(timetable, city)) {
+                    StorageManager.savePageValidators(city.getId(), page.getEtag(), page.getLastModified());
+                }
                 
-                PrayerTimes result = new PrayerTimes(date, fajr, "00:00", dohr, asr, maghreb, isha);
                 Log.d(TAG, "Successfully created PrayerTimes object");
                 return result;
                 
@@ -141,158 +49,116 @@ public class PrayerTimesService {
         });
     }
     
-    private static void saveFullMonthData(Document doc, String cityName) {
+    private static boolean saveFullMonthData(MonthTimetable timetable, City city) {
         try {
-            Element table = null;
-            Elements tables = doc.select("table");
-            for (Element t : tables) {
-                Elements rows = t.select("tr");
-                if (rows.size() > 1) {
-                    table = t;
-                    break;
-                }
-            }
-            
-            if (table == null) return;
+            if (timetable.isEmpty()) return false;
             
-            JSONObject monthData = new JSONObject();
-            Elements rows = table.select("tr");
-            
-            for (int i = 1; i < rows.size(); i++) {
-                Elements cols = rows.get(i).select("td");
-                if (cols.size() >= 6) {
-                    String date = cols.get(0).text().trim();
-                    JSONObject dayPrayers = new JSONObject();
-                    dayPrayers.put("Date", date);
-                    dayPrayers.put("Fajr", cols.get(1).text().trim());
-                    dayPrayers.put("Dohr", cols.get(2).text().trim());
-                    dayPrayers.put("Asr", cols.get(3).text().trim());
-                    dayPrayers.put("Maghreb", cols.get(4).text().trim());
-                    dayPrayers.put("Isha", cols.get(5).text().trim());
-                    monthData.put(date, dayPrayers);
-                }
-            }
-            
-            StorageManager.saveCityData(cityName, monthData);
-            StorageManager.saveLastUpdate();
-            Log.d(TAG, "Saved month data for " + cityName);
+            int saved = StorageManager.saveMonth(city, timetable);
+            if (saved == 0) return false;
+            Log.d(TAG, "Saved " + saved + " days of month data for " + city.getNameEn());
+            return true;
         } catch (Exception e) {
             Log.e(TAG, "Error saving month data", e);
+            return false;
         }
     }
     
-    private static void checkAndUpdateAllCitiesInBackground() {
-        CompletableFuture.runAsync(() -> {
-            if (!StorageManager.needsUpdate()) {
-                Log.d(TAG, "Cities already updated today, skipping");
-                return;
-            }
-            
-            Log.d(TAG, "Starting background update of all cities...");
-            updateAllCitiesDatabase();
-        });
+    // Runs on CitySyncWorker's thread; returns true once the refresh job is complete
+    public static boolean syncCities(boolean force) {
+        return CrawlGuard.run(force, () -> runSync(force));
     }
     
-    public static CompletableFuture<Void> forceUpdateAllCities() {
-        return CompletableFuture.runAsync(() -> {
+    private static boolean runSync(boolean force) {
+        java.util.List<City> cities;
+        if (force) {
             Log.i(TAG, "Force updating all cities database...");
-            updateAllCitiesDatabase();
-        });
+            cities = CitiesData.getAllCities();
+        } else {
+            // Each page holds about a month, so only refetch cities that are running out of days
+            int horizon = SettingsManager.getRefreshHorizonDays();
+            cities = StorageManager.getCitiesNeedingRefresh(CitiesData.getAllCities(), horizon);
+            if (cities.isEmpty() && RefreshJobManager.isComplete()) {
+                Log.d(TAG, "All cities have at least " + horizon + " days stored, skipping");
+                return true;
+            }
+        }
+        
+        return updateCitiesDatabase(cities, force);
     }
     
-    private static void updateAllCitiesDatabase() {
-        int successCount = 0;
-        java.util.List<String> failedCities = new java.util.ArrayList<>();
-        java.util.List<City> allCities = CitiesData.getAllCities();
+    private static boolean updateCitiesDatabase(java.util.List<City> cities, boolean force) {
+        // Picks up whatever an interrupted run left behind
+        java.util.List<City> todo = RefreshJobManager.resume(cities, force);
+        Log.i(TAG, "Starting update of " + todo.size() + " cities...");
+        long start = System.currentTimeMillis();
         
-        Log.i(TAG, "Starting update of " + allCities.size() + " cities...");
+        // Bounded parallelism with a per-host rate limit to stay polite to the server
+        CityCrawler crawler = new CityCrawler(
+            SettingsManager.getCrawlConcurrency(), CRAWL_REQUESTS_PER_SECOND, CRAWL_BURST);
         
-        for (City city : allCities) {
-            try {
-                String url = BASE_URL + city.getId() + "/city.html";
-                Document doc = Jsoup.connect(url)
-                    .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36")
-                    .timeout(15000)
-                    .get();
-                
-                saveFullMonthData(doc, city.getNameEn());
-                successCount++;
-                Log.d(TAG, "✓ Updated " + city.getNameEn() + " (" + successCount + "/" + allCities.size() + ")");
-                
-                // Small delay to avoid overwhelming the server
-                Thread.sleep(200);
-                
-            } catch (Exception e) {
-                failedCities.add(city.getNameEn());
-                Log.w(TAG, "✗ Failed to update " + city.getNameEn() + ": " + e.getMessage());
+        java.util.List<CityCrawler.CityResult> results = crawler.crawl(todo, new CityCrawler.CityFetcher() {
+            @Override
+            public String urlFor(City city) {
+                return CityPageLoader.urlFor(city);
             }
-        }
+            
+            @Override
+            public void fetch(City city, String url) throws Exception {
+                try {
+                    fetchAndSave(city);
+                    RefreshJobManager.markDone(city);
+                    CrawlGuard.renewLease();
+                } catch (Exception e) {
+                    // Checkpoint right away so a killed process doesn't lose the attempt
+                    RefreshJobManager.markFailed(city, e.getMessage());
+                    StorageManager.recordFetchResult(city, String.valueOf(e.getMessage()));
+                    throw e;
+                }
+            }
+        });
+        
+        // Update last update tracking with per-city results
+        StorageManager.updateLastUpdateWithResults(results);
         
-        // Count actual files in cities folder
-        int actualFiles = StorageManager.countCityFiles();
+        boolean complete = RefreshJobManager.isComplete();
+        if (complete) {
+            RefreshJobManager.finish();
+            Log.i(TAG, "Refresh job complete");
+        } else {
+            Log.i(TAG, "Refresh job incomplete, will resume on next run");
+        }
         
-        // Update last_update.json with results
-        StorageManager.updateLastUpdateWithResults(actualFiles, failedCities);
+        int successCount = 0;
+        java.util.List<String> failedCities = new java.util.ArrayList<>();
+        for (CityCrawler.CityResult result : results) {
+            if (result.success) {
+                successCount++;
+            } else {
+                failedCities.add(result.cityName);
+            }
+        }
         
-        Log.i(TAG, "Database update completed: " + actualFiles + "/" + allCities.size() + " cities successfully updated");
+        Log.i(TAG, "Database update completed: " + successCount + "/" + todo.size() + " cities successfully updated in "
+            + (System.currentTimeMillis() - start) + "ms");
         if (!failedCities.isEmpty()) {
             Log.w(TAG, "Failed cities: " + String.join(", ", failedCities));
         }
+        return complete;
     }
 
-    
-    private static boolean isValidTime(String time) {
-        return time != null && time.matches("\\d{1,2}:\\d{2}");
-    }
-    
-    private static String getCurrentDate() {
-        java.text.SimpleDateFormat dateFormat = new java.text.SimpleDateFormat("dd/MM", java.util.Locale.getDefault());
-        return dateFormat.format(new java.util.Date());
-    }
-    
-    public static CompletableFuture<String> fetchTomorrowsFajr(City city) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                String url = BASE_URL + city.getId() + "/city.html";
-                Document doc = Jsoup.connect(url)
-                    .userAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36")
-                    .timeout(10000)
-                    .get();
-
-                Elements tables = doc.select("table");
-                Element prayerTable = null;
-                for (Element table : tables) {
-                    Elements rows = table.select("tr");
-                    if (rows.size() > 2) { // Need at least header + today + tomorrow
-                        prayerTable = table;
-                        break;
-                    }
-                }
-                
-                if (prayerTable == null) {
-                    return "05:30"; // Fallback
-                }
-                
-                Elements rows = prayerTable.select("tr");
-                if (rows.size() < 3) {
-                    return "05:30"; // Fallback
-                }
-                
-                // Get tomorrow's row (third row: header, today, tomorrow)
-                Elements tomorrowCells = rows.get(2).select("td");
-                if (tomorrowCells.size() > 1) {
-                    String tomorrowFajr = tomorrowCells.get(1).text().trim();
-                    if (isValidTime(tomorrowFajr)) {
-                        return tomorrowFajr;
-                    }
-                }
-                
-                return "05:30"; // Fallback
-                
-            } catch (Exception e) {
-                Log.e(TAG, "Error fetching tomorrow's Fajr", e);
-                return "05:30"; // Fallback
-            }
-        });
+    private static void fetchAndSave(City city) throws Exception {
+        // Only revalidate when we already hold data; otherwise a 304 would leave us empty
+        CityPage page = StorageManager.hasCityData(city.getNameEn())
+            ? CityPageLoader.loadIfModifiedNow(city)
+            : CityPageLoader.loadNow(city);
+        if (page.isNotModified()) {
+            Log.d(TAG, city.getNameEn() + " unchanged, skipping parse");
+            StorageManager.recordFetchResult(city, DatabaseHelper.FETCH_NOT_MODIFIED);
+            return;
+        }
+        if (!saveFullMonthData(page.getTimetable(), city)) {
+            throw new RuntimeException("No month data saved");
+        }
+        StorageManager.savePageValidators(city.getId(), page.getEtag(), page.getLastModified());
     }
 }
\ No newline at end of file
@@ -0,0 +1,101 @@
+package com.salah.times;
+
+import android.content.Context;
+import android.util.Log;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class RefreshJobManager {
+    private static final String TAG = "RefreshJobManager";
+    public static final int MAX_ATTEMPTS = 3;
+    public static final String STATUS_PENDING = "pending";
+    public static final String STATUS_DONE = "done";
+    public static final String STATUS_FAILED = "failed";
+
+    private static Context appContext;
+
+    public static void init(Context context) {
+        appContext = context.getApplicationContext();
+    }
+
+    // Adds the cities to the current job (starting one if needed) and returns every city
+    // of the job still left to fetch, including ones an interrupted run never reached.
+    // A forced refresh resets the given cities even if they are done or out of attempts.
+    public static synchronized List<City> resume(List<City> cities, boolean force) {
+        DatabaseHelper db = DatabaseHelper.getInstance(appContext);
+        boolean resuming = db.countRefreshJobCities() > 0;
+        db.addRefreshJobCities(cities, force).join();
+
+        Map<Integer, CityState> states = getStateMap();
+        List<City> remaining = new ArrayList<>();
+        for (City city : CitiesData.getAllCities()) {
+            CityState state = states.get(city.getId());
+            if (state != null && state.needsFetch()) {
+                remaining.add(city);
+            }
+        }
+        if (resuming) {
+            Log.i(TAG, "Resuming refresh job, " + remaining.size() + " of " + states.size() + " cities left");
+        }
+        return remaining;
+    }
+
+    // Waits for the commit so a checkpoint is durable before the crawl moves on
+    public static void markDone(City city) {
+        DatabaseHelper.getInstance(appContext).updateRefreshJobCity(city.getId(), STATUS_DONE, null).join();
+    }
+
+    public static void markFailed(City city, String error) {
+        DatabaseHelper.getInstance(appContext).updateRefreshJobCity(city.getId(), STATUS_FAILED, error).join();
+    }
+
+    // Complete once every city has succeeded or used up its attempts
+    public static synchronized boolean isComplete() {
+        for (CityState state : getStates()) {
+            if (state.needsFetch()) return false;
+        }
+        return true;
+    }
+
+    public static synchronized void finish() {
+        DatabaseHelper.getInstance(appContext).clearRefreshJob().join();
+    }
+
+    public static List<CityState> getStates() {
+        try {
+            return DatabaseHelper.getInstance(appContext).getRefreshJobCities();
+        } catch (Exception e) {
+            return new ArrayList<>();
+        }
+    }
+
+    private static Map<Integer, CityState> getStateMap() {
+        Map<Integer, CityState> states = new HashMap<>();
+        for (CityState state : getStates()) {
+            states.put(state.cityId, state);
+        }
+        return states;
+    }
+
+    public static class CityState {
+        public final int cityId;
+        public final String cityName;
+        public final String status;
+        public final int attempts;
+        public final String lastError;
+
+        public CityState(int cityId, String cityName, String status, int attempts, String lastError) {
+            this.cityId = cityId;
+            this.cityName = cityName;
+            this.status = status;
+            this.attempts = attempts;
+            this.lastError = lastError;
+        }
+
+        public boolean needsFetch() {
+            return !STATUS_DONE.equals(status) && attempts < MAX_ATTEMPTS;
+        }
+    }
+}
@@ -36,10 +36,18 @@ public class SalahApplication extends Application {
         TranslationManager.init(this);
         StorageManager.init(this);
         SettingsManager.init(this);
+        HttpClientManager.init(this);
+        RefreshJobManager.init(this);
+        CrawlGuard.init(this);
+        DayScheduleCache.init(this);
+        AlarmSchedule.init(this);
         
         // Run migration
         MigrationHelper.migrateIfNeeded(this);
         
+        // Background refresh of cities running out of stored days
+        CitySyncWorker.schedulePeriodic(this);
+        
         // Set application metadata
         SharedPreferences prefs = getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
         if (prefs.getBoolean(KEY_FIRST_RUN, true)) {
@@ -47,6 +55,9 @@ public class SalahApplication extends Application {
             setupFirstRun();
         }
         
+        // Week of prayer alarms from the stored timetable, topped up as they fire
+        AdhanScheduler.init(this);
+        
         // Update version info
         prefs.edit().putString(KEY_APP_VERSION, "2.0").apply();
     }
@@ -58,21 +69,20 @@ public class SalahApplication extends Application {
             .putLong("install_time", System.currentTimeMillis())
             .apply();
         
-        // Initialize default settings in database
-        DatabaseHelper db = DatabaseHelper.getInstance(this);
-        db.saveSetting("default_city", "Casablanca");
-        db.saveSetting("language", "ar");
-        db.saveSetting("notifications_enabled", "true");
-        db.saveSetting("theme", "auto");
-        db.saveSetting("auto_update", "true");
-        db.saveSetting("adan_enabled", "true");
+        // Readers see the defaults at once; the database writer persists them in the background
+        SettingsManager.setDefaultCity("Casablanca");
+        SettingsManager.setLanguage("ar");
+        SettingsManager.setNotificationsEnabled(true);
+        SettingsManager.setTheme("auto");
+        SettingsManager.setAutoUpdate(true);
+        SettingsManager.setAdanEnabled(true);
         
         // Set default iqama delays
-        db.setIqamaDelay("fajr", 10);
-        db.setIqamaDelay("dhuhr", 10);
-        db.setIqamaDelay("asr", 10);
-        db.setIqamaDelay("maghrib", 5);
-        db.setIqamaDelay("isha", 10);
+        SettingsManager.setIqamaDelay("fajr", 10);
+        SettingsManager.setIqamaDelay("dhuhr", 10);
+        SettingsManager.setIqamaDelay("asr", 10);
+        SettingsManager.setIqamaDelay("maghrib", 5);
+        SettingsManager.setIqamaDelay("isha", 10);
         
         Log.d(TAG, "First run setup completed");
     }
@@ -343,6 +343,7 @@ public class SettingsActivity extends AppCompatActivity {
 
     
     private void updateAllCities() {
+        CitySyncWorker.syncNow(this);
         Toast.makeText(this, TranslationManager.tr("missing_strings.updating_cities"), Toast.LENGTH_SHORT).show();
     }
     
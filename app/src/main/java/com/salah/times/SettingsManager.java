@@ -1,94 +1,202 @@
 package com.salah.times;
 
 import android.content.Context;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class SettingsManager {
+    public static final String KEY_DEFAULT_CITY = "default_city";
+    public static final String KEY_LANGUAGE = "language";
+    
     private static Context appContext;
+    // Immutable copy of every setting, replaced as a whole on each write
+    private static volatile Map<String, String> snapshot;
+    private static final Map<String, List<OnSettingChangedListener>> listeners = new ConcurrentHashMap<>();
+    
+    public interface OnSettingChangedListener {
+        void onSettingChanged(String key, String value);
+    }
     
     public static void init(Context context) {
         appContext = context.getApplicationContext();
     }
     
+    // Drops the snapshot so the next read picks up rows written straight to the database
+    public static synchronized void reload() {
+        snapshot = null;
+    }
+    
+    public static void addListener(String key, OnSettingChangedListener listener) {
+        listeners.computeIfAbsent(key, k -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+    
+    public static void removeListener(String key, OnSettingChangedListener listener) {
+        List<OnSettingChangedListener> keyListeners = listeners.get(key);
+        if (keyListeners != null) keyListeners.remove(listener);
+    }
+    
+    private static Map<String, String> snapshot() {
+        Map<String, String> current = snapshot;
+        if (current == null) {
+            synchronized (SettingsManager.class) {
+                if (snapshot == null) {
+                    snapshot = Collections.unmodifiableMap(DatabaseHelper.getInstance(appContext).getAllSettings());
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+    
+    private static String get(String key, String defaultValue) {
+        String value = snapshot().get(key);
+        return value != null ? value : defaultValue;
+    }
+    
+    private static int getInt(String key, int defaultValue) {
+        try {
+            return Integer.parseInt(get(key, String.valueOf(defaultValue)));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+    
+    private static void put(String key, String value) {
+        put(key, value, () -> DatabaseHelper.getInstance(appContext).saveSetting(key, value));
+    }
+    
+    // Readers see the new value immediately; persist only queues the write on the database writer
+    private static void put(String key, String value, Runnable persist) {
+        synchronized (SettingsManager.class) {
+            Map<String, String> next = new HashMap<>(snapshot());
+            next.put(key, value);
+            snapshot = Collections.unmodifiableMap(next);
+        }
+        persist.run();
+        
+        List<OnSettingChangedListener> keyListeners = listeners.get(key);
+        if (keyListeners != null) {
+            for (OnSettingChangedListener listener : keyListeners) {
+                listener.onSettingChanged(key, value);
+            }
+        }
+    }
+    
     public static void setDefaultCity(String cityName) {
-        DatabaseHelper.getInstance(appContext).saveSetting("default_city", cityName);
+        put(KEY_DEFAULT_CITY, cityName);
     }
     
     public static String getDefaultCity() {
-        return DatabaseHelper.getInstance(appContext).getSetting("default_city", "Casablanca");
+        return get(KEY_DEFAULT_CITY, "Casablanca");
     }
     
     public static void setLanguage(String language) {
-        DatabaseHelper.getInstance(appContext).saveSetting("language", language);
+        put(KEY_LANGUAGE, language);
         TranslationManager.setLanguage(language);
     }
     
     public static String getLanguage() {
-        return DatabaseHelper.getInstance(appContext).getSetting("language", "ar");
+        return get(KEY_LANGUAGE, "ar");
     }
     
     public static void setNotificationsEnabled(boolean enabled) {
-        DatabaseHelper.getInstance(appContext).saveSetting("notifications_enabled", String.valueOf(enabled));
+        put("notifications_enabled", String.valueOf(enabled));
     }
     
     public static boolean getNotificationsEnabled() {
-        return Boolean.parseBoolean(DatabaseHelper.getInstance(appContext).getSetting("notifications_enabled", "true"));
+        return Boolean.parseBoolean(get("notifications_enabled", "true"));
     }
     
     public static void setTheme(String theme) {
-        DatabaseHelper.getInstance(appContext).saveSetting("theme", theme);
+        put("theme", theme);
     }
     
     public static String getTheme() {
-        return DatabaseHelper.getInstance(appContext).getSetting("theme", "auto");
+        return get("theme", "auto");
     }
     
     public static void setAutoUpdate(boolean enabled) {
-        DatabaseHelper.getInstance(appContext).saveSetting("auto_update", String.valueOf(enabled));
+        put("auto_update", String.valueOf(enabled));
     }
     
     public static boolean getAutoUpdate() {
-        return Boolean.parseBoolean(DatabaseHelper.getInstance(appContext).getSetting("auto_update", "true"));
+        return Boolean.parseBoolean(get("auto_update", "true"));
     }
     
     public static void setAdanEnabled(boolean enabled) {
-        DatabaseHelper.getInstance(appContext).saveSetting("adan_enabled", String.valueOf(enabled));
+        put("adan_enabled", String.valueOf(enabled));
     }
     
     public static boolean getAdanEnabled() {
-        return Boolean.parseBoolean(DatabaseHelper.getInstance(appContext).getSetting("adan_enabled", "true"));
+        return Boolean.parseBoolean(get("adan_enabled", "true"));
     }
     
     public static void setPrayerAlarmEnabled(String prayer, boolean enabled) {
-        DatabaseHelper.getInstance(appContext).setPrayerAlarmEnabled(prayer, enabled);
+        put(DatabaseHelper.PRAYER_ALARM_PREFIX + prayer.toLowerCase(), String.valueOf(enabled),
+            () -> DatabaseHelper.getInstance(appContext).setPrayerAlarmEnabled(prayer, enabled));
     }
     
     public static boolean getPrayerAlarmEnabled(String prayer) {
-        return DatabaseHelper.getInstance(appContext).getPrayerAlarmEnabled(prayer, true);
+        return Boolean.parseBoolean(get(DatabaseHelper.PRAYER_ALARM_PREFIX + prayer.toLowerCase(), "true"));
     }
     
     public static void setAdhanRingtone(int type) {
-        DatabaseHelper.getInstance(appContext).saveSetting("adhan_ringtone", String.valueOf(type));
+        put("adhan_ringtone", String.valueOf(type));
     }
     
     public static int getAdhanRingtone() {
-        return Integer.parseInt(DatabaseHelper.getInstance(appContext).getSetting("adhan_ringtone", "0"));
+        return getInt("adhan_ringtone", 0);
     }
     
     public static void setAdhanVolume(int volume) {
-        DatabaseHelper.getInstance(appContext).saveSetting("adhan_volume", String.valueOf(volume));
+        put("adhan_volume", String.valueOf(volume));
     }
     
     public static int getAdhanVolume() {
-        return Integer.parseInt(DatabaseHelper.getInstance(appContext).getSetting("adhan_volume", "80"));
+        return getInt("adhan_volume", 80);
     }
     
     public static void setIqamaDelay(String prayer, int minutes) {
-        DatabaseHelper.getInstance(appContext).setIqamaDelay(prayer, minutes);
+        put(DatabaseHelper.IQAMA_DELAY_PREFIX + prayer.toLowerCase(), String.valueOf(minutes),
+            () -> DatabaseHelper.getInstance(appContext).setIqamaDelay(prayer, minutes));
     }
     
     public static int getIqamaDelay(String prayer) {
-        return DatabaseHelper.getInstance(appContext).getIqamaDelay(prayer, 10);
+        return getInt(DatabaseHelper.IQAMA_DELAY_PREFIX + prayer.toLowerCase(), 10);
     }
     
-
-}
\ No newline at end of file
+    // Minutes before each prayer for the reminder notification; 0 turns it off
+    public static void setReminderMinutes(int minutes) {
+        put("reminder_minutes", String.valueOf(minutes));
+    }
+    
+    public static int getReminderMinutes() {
+        return getInt("reminder_minutes", 10);
+    }
+    
+    public static void setCrawlConcurrency(int concurrency) {
+        put("crawl_concurrency", String.valueOf(concurrency));
+    }
+    
+    public static int getCrawlConcurrency() {
+        return getInt("crawl_concurrency", 4);
+    }
+    
+    public static void setRefreshHorizonDays(int days) {
+        put("refresh_horizon_days", String.valueOf(days));
+    }
+    
+    // Cities with fewer stored days ahead than this get refetched
+    public static int getRefreshHorizonDays() {
+        return getInt("refresh_horizon_days", 7);
+    }
+    
+    // Past days of prayer times kept per city before the background sync deletes them
+    public static int getRetentionDays() {
+        return getInt("retention_past_days", 7);
+    }
+}
@@ -1,142 +1,180 @@
 package com.salah.times;
 
 import android.content.Context;
-import org.json.JSONObject;
+import android.util.Log;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Locale;
 
 public class StorageManager {
+    private static final String TAG = "StorageManager";
     private static Context appContext;
     
     public static void init(Context context) {
         appContext = context.getApplicationContext();
     }
 
-    public static void saveCityData(String cityName, JSONObject monthData) {
+    // Number of days stored; the whole month goes in as one transaction
+    public static int saveMonth(City city, MonthTimetable timetable) {
+        return saveMonths(java.util.Collections.singletonMap(city, timetable));
+    }
+    
+    public static int saveMonths(java.util.Map<City, MonthTimetable> months) {
+        return DatabaseHelper.getInstance(appContext).savePrayerTimesMonths(months).join();
+    }
+    
+    // Today's stored times for the city, or null when none are stored
+    public static PrayerTimes loadTodayPrayerTimes(String cityName) {
         try {
-            DatabaseHelper db = DatabaseHelper.getInstance(appContext);
-            java.util.Iterator<String> keys = monthData.keys();
-            
-            while (keys.hasNext()) {
-                String dateKey = keys.next();
-                JSONObject dayData = monthData.getJSONObject(dateKey);
-                
-                if (!dayData.has("Fajr")) continue;
-                
-                String fullDate = convertToFullDate(dayData.getString("Date"));
-                
-                db.savePrayerTimes(
-                    cityName,
-                    fullDate,
-                    dayData.getString("Fajr"),
-                    "00:00",
-                    dayData.getString("Dohr"),
-                    dayData.getString("Asr"),
-                    dayData.getString("Maghreb"),
-                    dayData.getString("Isha")
-                );
-            }
+            return DayScheduleCache.getToday(cityName);
         } catch (Exception e) {
-            e.printStackTrace();
+            return null;
         }
     }
     
-    private static String convertToFullDate(String ddMM) {
+    // True while any city's stored days run out within the refresh horizon
+    public static boolean needsUpdate() {
         try {
-            SimpleDateFormat inputFormat = new SimpleDateFormat("dd/MM", Locale.getDefault());
-            SimpleDateFormat outputFormat = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault());
-            Date date = inputFormat.parse(ddMM);
-            java.util.Calendar cal = java.util.Calendar.getInstance();
-            cal.setTime(date);
-            cal.set(java.util.Calendar.YEAR, java.util.Calendar.getInstance().get(java.util.Calendar.YEAR));
-            return outputFormat.format(cal.getTime());
+            return !getCitiesNeedingRefresh(CitiesData.getAllCities(), SettingsManager.getRefreshHorizonDays()).isEmpty();
         } catch (Exception e) {
-            return new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(new Date());
+            return true;
         }
     }
     
-    public static JSONObject loadCityData(String cityName) {
+    public static boolean hasCityData(String cityName) {
+        return DayScheduleCache.getToday(cityName) != null;
+    }
+    
+    // Packed minutes for a run of days, see DatabaseHelper.loadRange
+    public static short[] loadRange(City city, int fromDay, int toDay, short[] buffer) {
+        return DatabaseHelper.getInstance(appContext).loadRange(city.getId(), fromDay, toDay, buffer);
+    }
+    
+    // Stored span and last fetch per city id
+    public static java.util.Map<Integer, Coverage> getCoverage() {
         try {
-            DatabaseHelper db = DatabaseHelper.getInstance(appContext);
-            String today = new SimpleDateFormat("dd/MM", Locale.getDefault()).format(new Date());
-            String todayFull = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(new Date());
-            
-            PrayerTimes times = db.loadPrayerTimes(cityName, todayFull);
-            if (times == null) return null;
-            
-            JSONObject cityData = new JSONObject();
-            cityData.put("city", cityName);
-            cityData.put("date", todayFull);
-            
-            JSONObject prayerTimes = new JSONObject();
-            JSONObject todayData = new JSONObject();
-            todayData.put("Date", today);
-            todayData.put("Fajr", times.getFajr());
-            todayData.put("Dohr", times.getDhuhr());
-            todayData.put("Asr", times.getAsr());
-            todayData.put("Maghreb", times.getMaghrib());
-            todayData.put("Isha", times.getIsha());
-            prayerTimes.put(today, todayData);
-            
-            cityData.put("prayer_times", prayerTimes);
-            return cityData;
+            return DatabaseHelper.getInstance(appContext).getCoverage();
         } catch (Exception e) {
-            return null;
+            return new java.util.HashMap<>();
         }
     }
     
-    public static void saveLastUpdate() {
+    public static void recordFetchResult(City city, String result) {
+        DatabaseHelper.getInstance(appContext).recordFetchResult(city.getId(), result);
+    }
+    
+    // Deletes days older than the retention window, then releases the freed pages
+    public static int applyRetention() {
         DatabaseHelper db = DatabaseHelper.getInstance(appContext);
-        String today = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(new Date());
-        db.setLastUpdateDate(today);
+        int deleted = db.deletePrayerTimesBefore(EpochDays.today() - SettingsManager.getRetentionDays()).join();
+        long released = deleted > 0 || db.getFreeBytes() > 0 ? db.compact().join() : 0;
+        Log.d(TAG, "Retention removed " + deleted + " rows, released " + released + " pages");
+        return deleted;
     }
     
-    public static boolean needsUpdate() {
-        try {
-            DatabaseHelper db = DatabaseHelper.getInstance(appContext);
-            String lastUpdateDate = db.getLastUpdateDate();
-            if (lastUpdateDate == null) return true;
-            
-            String today = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(new Date());
-            return !today.equals(lastUpdateDate);
-        } catch (Exception e) {
-            return true;
+    // Cities whose stored horizon is shorter than minDays
+    public static java.util.List<City> getCitiesNeedingRefresh(java.util.List<City> cities, int minDays) {
+        int today = EpochDays.today();
+        java.util.Set<Integer> missing = new java.util.HashSet<>(
+            DatabaseHelper.getInstance(appContext).getCitiesMissingDays(today, today + minDays - 1));
+        java.util.List<City> stale = new java.util.ArrayList<>();
+        for (City city : cities) {
+            if (missing.contains(city.getId())) {
+                stale.add(city);
+            }
         }
+        return stale;
     }
     
-    public static boolean hasCityData(String cityName) {
-        DatabaseHelper db = DatabaseHelper.getInstance(appContext);
-        String today = new SimpleDateFormat("yyyy-MM-dd", Locale.getDefault()).format(new Date());
-        return db.loadPrayerTimes(cityName, today) != null;
+    // Most recent fetch of any city, 0 when nothing was ever fetched
+    public static long getLastFetchTime() {
+        long last = 0;
+        for (Coverage coverage : getCoverage().values()) {
+            last = Math.max(last, coverage.lastFetch);
+        }
+        return last;
     }
     
-    public static boolean isDataExpired(String cityName) {
-        return needsUpdate();
+    public static void updateLastUpdateWithResults(java.util.List<CityCrawler.CityResult> results) {
+        DatabaseHelper db = DatabaseHelper.getInstance(appContext);
+        int successCount = 0;
+        java.util.List<String> failedCities = new java.util.ArrayList<>();
+        for (CityCrawler.CityResult result : results) {
+            if (result.success) {
+                successCount++;
+            } else {
+                failedCities.add(result.cityName);
+            }
+        }
+        
+        db.saveSetting("last_update_success_count", String.valueOf(successCount));
+        db.saveSetting("last_update_failed_cities", String.join(",", failedCities));
+        db.saveSetting("last_update_time", getCurrentTimestamp());
     }
     
-    public static void updateLastUpdateTime() {
-        saveLastUpdate();
+    public static int getLastUpdateSuccessCount() {
+        DatabaseHelper db = DatabaseHelper.getInstance(appContext);
+        try {
+            return Integer.parseInt(db.getSetting("last_update_success_count", "0"));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
     }
     
-    public static boolean shouldUpdateToday() {
-        return needsUpdate();
+    public static java.util.List<String> getLastUpdateFailedCities() {
+        DatabaseHelper db = DatabaseHelper.getInstance(appContext);
+        String failed = db.getSetting("last_update_failed_cities", "");
+        java.util.List<String> cities = new java.util.ArrayList<>();
+        if (!failed.isEmpty()) {
+            cities.addAll(java.util.Arrays.asList(failed.split(",")));
+        }
+        return cities;
     }
     
-    public static int countCityFiles() {
-        return 0;
+    public static String[] getPageValidators(int cityId) {
+        try {
+            String[] validators = DatabaseHelper.getInstance(appContext).getPageValidators(cityId);
+            if (validators == null || (validators[0] == null && validators[1] == null)) return null;
+            return validators;
+        } catch (Exception e) {
+            return null;
+        }
     }
     
-    public static void updateLastUpdateWithResults(int cityCount, java.util.List<String> failedCities) {
-        saveLastUpdate();
+    public static void savePageValidators(int cityId, String etag, String lastModified) {
+        if (etag == null && lastModified == null) return;
+        DatabaseHelper.getInstance(appContext).savePageValidators(cityId, etag, lastModified);
     }
     
     public static void clearAllCityData() {
         DatabaseHelper db = DatabaseHelper.getInstance(appContext);
         db.clearAllData();
+        CityPageLoader.clearCache();
+        HttpClientManager.clearCache();
     }
     
     private static String getCurrentTimestamp() {
         return new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.getDefault()).format(new Date());
     }
-}
\ No newline at end of file
+    
+    public static class Coverage {
+        public final int cityId;
+        public final int firstDay;
+        public final int lastDay;
+        public final long lastFetch;
+        public final String lastResult;
+        
+        public Coverage(int cityId, int firstDay, int lastDay, long lastFetch, String lastResult) {
+            this.cityId = cityId;
+            this.firstDay = firstDay;
+            this.lastDay = lastDay;
+            this.lastFetch = lastFetch;
+            this.lastResult = lastResult;
+        }
+        
+        public int remainingDays(int today) {
+            if (firstDay < 0 || firstDay > today || lastDay < today) return 0;
+            return lastDay - today + 1;
+        }
+    }
+}
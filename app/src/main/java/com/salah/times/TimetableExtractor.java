@@ -0,0 +1,234 @@
+package com.salah.times;
+
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+public class TimetableExtractor {
+    private static final int MIN_CELLS = 6;
+    // Jsoup looks for <meta charset> in the same leading span of the page
+    private static final int CHARSET_SNIFF_BYTES = 5 * 1024;
+
+    // Page bytes to text: the Content-Type charset when the server sends one, then a UTF-8 BOM,
+    // then <meta charset> / http-equiv in the head, then UTF-8, the order Jsoup.parse used
+    public static String decode(byte[] body, Charset declared) {
+        if (declared != null) return new String(body, declared);
+        if (body.length >= 3 && (body[0] & 0xff) == 0xef && (body[1] & 0xff) == 0xbb && (body[2] & 0xff) == 0xbf) {
+            return new String(body, 3, body.length - 3, StandardCharsets.UTF_8);
+        }
+        Charset meta = metaCharset(new String(body, 0, Math.min(body.length, CHARSET_SNIFF_BYTES), StandardCharsets.ISO_8859_1));
+        return new String(body, meta != null ? meta : StandardCharsets.UTF_8);
+    }
+
+    private static Charset metaCharset(String head) {
+        String lower = head.toLowerCase(Locale.US);
+        for (int i = lower.indexOf("<meta"); i >= 0; i = lower.indexOf("<meta", i + 5)) {
+            int end = lower.indexOf('>', i);
+            if (end < 0) break;
+            int at = lower.indexOf("charset=", i);
+            if (at < 0 || at > end) continue;
+            int start = at + "charset=".length();
+            while (start < end && (lower.charAt(start) == '"' || lower.charAt(start) == '\'' || lower.charAt(start) == ' ')) start++;
+            int stop = start;
+            while (stop < end && (Character.isLetterOrDigit(lower.charAt(stop)) || lower.charAt(stop) == '-' || lower.charAt(stop) == '_')) stop++;
+            try {
+                if (stop > start) return Charset.forName(lower.substring(start, stop));
+            } catch (IllegalArgumentException e) {
+                // Unknown or malformed name; keep looking, then fall back to UTF-8
+            }
+        }
+        return null;
+    }
+
+    // Single forward scan over the page keeping only <td> text of table rows.
+    // Returns the rows of the first table that holds prayer times, or an empty list.
+    public static List<TimetableRow> extract(String html) {
+        List<List<TimetableRow>> tables = new ArrayList<>();
+        List<String> cells = null;
+        StringBuilder cell = null;
+        int n = html.length();
+        int i = 0;
+
+        while (i < n) {
+            char c = html.charAt(i);
+            if (c != '<') {
+                if (cell != null) cell.append(c);
+                i++;
+                continue;
+            }
+
+            if (html.startsWith("<!--", i)) {
+                int end = html.indexOf("-->", i + 4);
+                i = end < 0 ? n : end + 3;
+                continue;
+            }
+
+            int tagEnd = findTagEnd(html, i + 1);
+            if (tagEnd < 0) break;
+
+            boolean closing = i + 1 < n && html.charAt(i + 1) == '/';
+            int nameStart = i + (closing ? 2 : 1);
+            int nameEnd = nameStart;
+            while (nameEnd < tagEnd && Character.isLetterOrDigit(html.charAt(nameEnd))) nameEnd++;
+            int nameLength = nameEnd - nameStart;
+            i = tagEnd + 1;
+
+            if (!closing && (isTag(html, nameStart, nameLength, "script") || isTag(html, nameStart, nameLength, "style"))) {
+                i = skipRawText(html, i, html.substring(nameStart, nameEnd));
+                continue;
+            }
+
+            if (isTag(html, nameStart, nameLength, "table")) {
+                if (!closing) {
+                    tables.add(new ArrayList<>());
+                } else if (!tables.isEmpty()) {
+                    if (cells != null) {
+                        finishCell(cells, cell);
+                        finishRow(tables, cells);
+                        cells = null;
+                        cell = null;
+                    }
+                    List<TimetableRow> rows = tables.remove(tables.size() - 1);
+                    if (!rows.isEmpty()) return rows;
+                }
+            } else if (isTag(html, nameStart, nameLength, "tr")) {
+                if (cells != null) {
+                    finishCell(cells, cell);
+                    finishRow(tables, cells);
+                }
+                cells = closing ? null : new ArrayList<>();
+                cell = null;
+            } else if (isTag(html, nameStart, nameLength, "td")) {
+                if (cells != null) {
+                    finishCell(cells, cell);
+                    cell = closing ? null : new StringBuilder();
+                }
+            } else if (isTag(html, nameStart, nameLength, "th")) {
+                // Header cells are ignored, like select("td") did
+                if (cells != null) finishCell(cells, cell);
+                cell = null;
+            }
+        }
+        return new ArrayList<>();
+    }
+
+    // DOM fallback kept for pages the scanner can't make sense of
+    public static List<TimetableRow> extract(Document doc) {
+        Elements tables = doc.select("table");
+        for (Element table : tables) {
+            List<TimetableRow> rows = new ArrayList<>();
+            for (Element tr : table.select("tr")) {
+                Elements tds = tr.select("td");
+                List<String> cells = new ArrayList<>();
+                for (Element td : tds) {
+                    cells.add(td.text().trim());
+                }
+                TimetableRow row = toRow(cells);
+                if (row != null) rows.add(row);
+            }
+            if (!rows.isEmpty()) return rows;
+        }
+        return new ArrayList<>();
+    }
+
+    private static void finishCell(List<String> cells, StringBuilder cell) {
+        if (cell != null) cells.add(cleanText(cell));
+    }
+
+    private static void finishRow(List<List<TimetableRow>> tables, List<String> cells) {
+        if (tables.isEmpty()) return;
+        TimetableRow row = toRow(cells);
+        if (row != null) tables.get(tables.size() - 1).add(row);
+    }
+
+    private static TimetableRow toRow(List<String> cells) {
+        if (cells.size() < MIN_CELLS || !isTime(cells.get(1))) return null;
+        return new TimetableRow(cells.get(0), cells.get(1), cells.get(2), cells.get(3), cells.get(4), cells.get(5));
+    }
+
+    private static boolean isTag(String html, int start, int length, String name) {
+        return length == name.length() && html.regionMatches(true, start, name, 0, length);
+    }
+
+    private static int findTagEnd(String html, int from) {
+        char quote = 0;
+        for (int i = from; i < html.length(); i++) {
+            char c = html.charAt(i);
+            if (quote != 0) {
+                if (c == quote) quote = 0;
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipRawText(String html, int from, String tagName) {
+        String close = "</" + tagName;
+        for (int i = html.indexOf('<', from); i >= 0; i = html.indexOf('<', i + 1)) {
+            if (html.regionMatches(true, i, close, 0, close.length())) {
+                int end = html.indexOf('>', i);
+                return end < 0 ? html.length() : end + 1;
+            }
+        }
+        return html.length();
+    }
+
+    // Decodes the few entities used in the table and collapses whitespace like Element.text()
+    private static String cleanText(StringBuilder raw) {
+        StringBuilder out = new StringBuilder(raw.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c == '&') {
+                int semi = raw.indexOf(";", i);
+                if (semi > i && semi - i <= 8) {
+                    char decoded = decodeEntity(raw.substring(i + 1, semi));
+                    if (decoded != 0) {
+                        c = decoded;
+                        i = semi;
+                    }
+                }
+            }
+            if (Character.isWhitespace(c) || c == '\u00a0') {
+                pendingSpace = out.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                out.append(' ');
+                pendingSpace = false;
+            }
+            out.append(c);
+        }
+        return out.toString();
+    }
+
+    private static char decodeEntity(String name) {
+        switch (name) {
+            case "nbsp": return '\u00a0';
+            case "amp": return '&';
+            case "lt": return '<';
+            case "gt": return '>';
+            case "quot": return '"';
+            case "apos": return '\'';
+        }
+        try {
+            if (name.startsWith("#x") || name.startsWith("#X")) return (char) Integer.parseInt(name.substring(2), 16);
+            if (name.startsWith("#")) return (char) Integer.parseInt(name.substring(1));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+        return 0;
+    }
+
+    private static boolean isTime(String value) {
+        return value != null && value.matches("\\d{1,2}:\\d{2}");
+    }
+}
@@ -0,0 +1,26 @@
+package com.salah.times;
+
+public class TimetableRow {
+    private final String date;
+    private final String fajr;
+    private final String dhuhr;
+    private final String asr;
+    private final String maghrib;
+    private final String isha;
+
+    public TimetableRow(String date, String fajr, String dhuhr, String asr, String maghrib, String isha) {
+        this.date = date;
+        this.fajr = fajr;
+        this.dhuhr = dhuhr;
+        this.asr = asr;
+        this.maghrib = maghrib;
+        this.isha = isha;
+    }
+
+    public String getDate() { return date; }
+    public String getFajr() { return fajr; }
+    public String getDhuhr() { return dhuhr; }
+    public String getAsr() { return asr; }
+    public String getMaghrib() { return maghrib; }
+    public String getIsha() { return isha; }
+}
@@ -0,0 +1,37 @@
+package com.salah.times;
+
+public class TokenBucket {
+    private final double capacity;
+    private final double refillPerMs;
+    private double tokens;
+    private long lastRefill; // System.nanoTime(), which wall-clock changes don't move
+
+    public TokenBucket(int capacity, double tokensPerSecond) {
+        this.capacity = Math.max(1, capacity);
+        this.refillPerMs = tokensPerSecond / 1000.0;
+        this.tokens = this.capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    // Blocks until a token is available
+    public void acquire() throws InterruptedException {
+        while (true) {
+            long waitMs;
+            synchronized (this) {
+                refill();
+                if (tokens >= 1) {
+                    tokens -= 1;
+                    return;
+                }
+                waitMs = (long) Math.ceil((1 - tokens) / refillPerMs);
+            }
+            Thread.sleep(Math.max(1, waitMs));
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) / 1e6 * refillPerMs);
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,62 @@
+package com.salah.times;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import java.util.Calendar;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(RobolectricTestRunner.class)
+public class AdhanSchedulerTest {
+    private int today;
+
+    @Before
+    public void setUp() {
+        Context context = RuntimeEnvironment.getApplication();
+        SettingsManager.init(context);
+        StorageManager.init(context);
+        AlarmSchedule.init(context);
+        Map<City, MonthTimetable> months = Timetables.months(1, AdhanScheduler.DAYS_AHEAD + 1);
+        SettingsManager.setDefaultCity(months.keySet().iterator().next().getNameEn());
+        StorageManager.saveMonths(months);
+        today = EpochDays.today();
+    }
+
+    @After
+    public void tearDown() {
+        AlarmSchedule.setAll(true);
+        SettingsManager.reload();
+        DatabaseHelper.resetForTests();
+    }
+
+    // With every prayer on today's weekday only, the pass run as today's last alarm fires must
+    // already hold next week's, since no other alarm would trigger a pass before then
+    @Test
+    public void weekdayOnlyPrayersArePlannedAWeekAhead() {
+        int weekday = AlarmSchedule.dayIndex(Calendar.getInstance());
+        for (String prayer : AlarmSchedule.PRAYERS) {
+            AlarmSchedule.setMask(prayer, 1 << weekday);
+        }
+
+        Map<Integer, Long> planned = AdhanScheduler.plan(System.currentTimeMillis());
+
+        for (int prayer = 0; prayer < AlarmSchedule.PRAYERS.length; prayer++) {
+            assertTrue(AlarmSchedule.PRAYERS[prayer],
+                planned.containsKey(AdhanScheduler.requestCode(today + 7, prayer, AdhanScheduler.KIND_ADHAN)));
+            for (int d = 1; d < 7; d++) {
+                assertFalse(AlarmSchedule.PRAYERS[prayer] + " on day " + d,
+                    planned.containsKey(AdhanScheduler.requestCode(today + d, prayer, AdhanScheduler.KIND_ADHAN)));
+            }
+        }
+        for (int code : planned.keySet()) {
+            assertTrue(code < AdhanScheduler.requestCode(today + AdhanScheduler.DAYS_AHEAD + 1, 0, 0));
+        }
+    }
+}
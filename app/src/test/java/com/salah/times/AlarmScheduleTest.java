@@ -0,0 +1,71 @@
+package com.salah.times;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.Context;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(RobolectricTestRunner.class)
+public class AlarmScheduleTest {
+    private DatabaseHelper db;
+
+    @Before
+    public void setUp() {
+        Context context = RuntimeEnvironment.getApplication();
+        AlarmSchedule.init(context);
+        db = DatabaseHelper.getInstance(context);
+        AlarmSchedule.setAll(false);
+    }
+
+    @After
+    public void tearDown() {
+        AlarmSchedule.setAll(true);
+        DatabaseHelper.resetForTests();
+    }
+
+    @Test
+    public void concurrentDayTogglesAreAllKept() throws Exception {
+        for (int round = 0; round < 50; round++) {
+            AlarmSchedule.setMask("asr", 0);
+            CountDownLatch go = new CountDownLatch(1);
+            List<Thread> threads = new ArrayList<>();
+            for (int day = 0; day < AlarmSchedule.DAYS.length; day++) {
+                int toggled = day;
+                Thread thread = new Thread(() -> {
+                    try {
+                        go.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    AlarmSchedule.setEnabled("asr", toggled, true);
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            go.countDown();
+            for (Thread thread : threads) thread.join();
+
+            assertEquals("round " + round, AlarmSchedule.ALL_DAYS, AlarmSchedule.getMask("asr"));
+            db.flush();
+            assertEquals("round " + round, AlarmSchedule.ALL_DAYS, db.getAlarmDayMasks().get("asr").intValue());
+        }
+    }
+
+    @Test
+    public void setEnabledOnlyChangesItsDay() {
+        int friday = AlarmSchedule.dayIndex("friday");
+        AlarmSchedule.setMask("fajr", AlarmSchedule.ALL_DAYS);
+        AlarmSchedule.setEnabled("fajr", friday, false);
+        assertEquals(AlarmSchedule.ALL_DAYS & ~(1 << friday), AlarmSchedule.getMask("fajr"));
+        AlarmSchedule.setEnabled("fajr", friday, true);
+        assertEquals(AlarmSchedule.ALL_DAYS, AlarmSchedule.getMask("fajr"));
+    }
+}
@@ -0,0 +1,62 @@
+package com.salah.times;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(RobolectricTestRunner.class)
+public class CrawlGuardTest {
+
+    @Before
+    public void setUp() {
+        CrawlGuard.init(RuntimeEnvironment.getApplication());
+    }
+
+    @After
+    public void tearDown() {
+        DatabaseHelper.resetForTests();
+    }
+
+    // A crawl dying with an Error must still release the callers that joined it and the lease
+    @Test
+    public void errorInTheCrawlReleasesJoinersAndTheLease() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch fail = new CountDownLatch(1);
+        CompletableFuture<Boolean> owner = CompletableFuture.supplyAsync(() -> CrawlGuard.run(false, () -> {
+            started.countDown();
+            try {
+                fail.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new StackOverflowError("crawl");
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Boolean> joiner = CompletableFuture.supplyAsync(() -> CrawlGuard.run(false, () -> true));
+        // Give the joiner time to find the running crawl
+        Thread.sleep(200);
+        fail.countDown();
+
+        try {
+            owner.get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof StackOverflowError);
+        }
+        assertFalse(joiner.get(5, TimeUnit.SECONDS));
+
+        // The lease was released, so the next crawl runs
+        assertEquals(Boolean.TRUE, CompletableFuture.supplyAsync(() -> CrawlGuard.run(false, () -> true)).get(5, TimeUnit.SECONDS));
+    }
+}
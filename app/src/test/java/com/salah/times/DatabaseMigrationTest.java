@@ -0,0 +1,134 @@
+package com.salah.times;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import java.io.File;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+// Opens a database written by the version 5 schema, where prayer times were strings keyed by
+// city name and ISO date, and checks what the upgrade turns it into
+@RunWith(RobolectricTestRunner.class)
+public class DatabaseMigrationTest {
+
+    @After
+    public void tearDown() {
+        DatabaseHelper.resetForTests();
+    }
+
+    @Test
+    public void upgradesStringPrayerTimesToIntegerMinutes() {
+        Context context = RuntimeEnvironment.getApplication();
+        createVersion5(context);
+
+        DatabaseHelper helper = DatabaseHelper.getInstance(context);
+        City casablanca = CitiesData.findCityByName("Casablanca");
+        City rabat = CitiesData.findCityByName("Rabat");
+        int day = EpochDays.of(2026, 3, 29);
+
+        short[] times = helper.loadRange(casablanca.getId(), day, day + 2);
+        assertRow(times, 0, 5 * 60 + 7, MonthTimetable.UNKNOWN, 13 * 60 + 31, 16 * 60 + 58, 19 * 60 + 49, 21 * 60 + 5);
+        // A malformed time becomes NULL rather than failing the row
+        assertRow(times, 1, 5 * 60 + 5, 6 * 60 + 40, 13 * 60 + 30, MonthTimetable.UNKNOWN, 19 * 60 + 50, 21 * 60 + 6);
+        // Not in the old table
+        assertRow(times, 2, MonthTimetable.UNKNOWN, MonthTimetable.UNKNOWN, MonthTimetable.UNKNOWN,
+            MonthTimetable.UNKNOWN, MonthTimetable.UNKNOWN, MonthTimetable.UNKNOWN);
+        assertRow(helper.loadRange(rabat.getId(), day, day), 0, 0, MonthTimetable.UNKNOWN, 12 * 60, 15 * 60 + 30, 18 * 60 + 45, 20 * 60);
+
+        // Rows for a city the app no longer knows and rows with an unparsable date are dropped
+        SQLiteDatabase db = helper.getReadableDatabase();
+        assertEquals(3, count(db, "SELECT COUNT(*) FROM prayer_times"));
+        assertEquals(0, count(db, "SELECT COUNT(*) FROM sqlite_master WHERE name = 'prayer_times_text'"));
+
+        // Coverage is rebuilt from what survived
+        try (Cursor cursor = db.rawQuery("SELECT first_day, last_day FROM coverage WHERE city_id = ?",
+                new String[]{String.valueOf(casablanca.getId())})) {
+            assertTrue(cursor.moveToFirst());
+            assertEquals(day, cursor.getInt(0));
+            assertEquals(day + 1, cursor.getInt(1));
+        }
+
+        // alarm_<prayer>_<day> settings became a weekday mask
+        int sunday = AlarmSchedule.dayIndex("sunday");
+        Map<String, Integer> masks = helper.getAlarmDayMasks();
+        assertEquals(AlarmSchedule.ALL_DAYS & ~(1 << sunday), masks.get("fajr").intValue());
+        assertEquals(AlarmSchedule.ALL_DAYS, masks.get("isha").intValue());
+    }
+
+    private static void createVersion5(Context context) {
+        File path = context.getDatabasePath("salah_times.db");
+        path.getParentFile().mkdirs();
+        SQLiteDatabase db = SQLiteDatabase.openOrCreateDatabase(path, null);
+        try {
+            db.execSQL("CREATE TABLE settings (key TEXT PRIMARY KEY, value TEXT, updated_at INTEGER)");
+            db.execSQL("CREATE TABLE prayer_times (id INTEGER PRIMARY KEY AUTOINCREMENT, city_name TEXT NOT NULL, date TEXT NOT NULL, fajr TEXT, sunrise TEXT, dhuhr TEXT, asr TEXT, maghrib TEXT, isha TEXT, last_updated INTEGER, UNIQUE(city_name, date))");
+            db.execSQL("CREATE TABLE iqama_delays (prayer TEXT PRIMARY KEY, delay_minutes INTEGER)");
+            db.execSQL("CREATE TABLE prayer_alarms (prayer TEXT PRIMARY KEY, enabled INTEGER DEFAULT 1)");
+            db.execSQL("CREATE TABLE update_tracking (id INTEGER PRIMARY KEY, last_update_date TEXT)");
+            db.execSQL("CREATE TABLE alarm_tracking (date TEXT PRIMARY KEY, alarms_set INTEGER DEFAULT 0)");
+            db.execSQL("CREATE TABLE page_validators (city_id INTEGER PRIMARY KEY, etag TEXT, last_modified TEXT, updated_at INTEGER)");
+            db.execSQL("CREATE TABLE refresh_job (city_id INTEGER PRIMARY KEY, city_name TEXT, status TEXT, attempts INTEGER DEFAULT 0, last_error TEXT, updated_at INTEGER)");
+            db.execSQL("CREATE TABLE crawl_lease (id INTEGER PRIMARY KEY, owner TEXT, expires_at INTEGER)");
+
+            // Sunrise was stored as "00:00" when the page didn't publish it
+            insert(db, "Casablanca", "2026-03-29", "5:07", "00:00", "13:31", "16:58", "19:49", "21:05");
+            insert(db, "Casablanca", "2026-03-30", "05:05", "06:40", "13:30", "16h59", "19:50", "21:06");
+            insert(db, "Rabat", "2026-03-29", "00:00", "00:00", "12:00", "15:30", "18:45", "20:00");
+            insert(db, "Atlantis", "2026-03-29", "05:00", "06:30", "13:00", "16:30", "19:00", "20:30");
+            insert(db, "Rabat", "29/03/2026", "05:00", "06:30", "13:00", "16:30", "19:00", "20:30");
+
+            ContentValues setting = new ContentValues();
+            setting.put("key", "alarm_fajr_sunday");
+            setting.put("value", "false");
+            db.insert("settings", null, setting);
+            setting.put("key", "alarm_isha_monday");
+            setting.put("value", "true");
+            db.insert("settings", null, setting);
+
+            db.setVersion(5);
+        } finally {
+            db.close();
+        }
+    }
+
+    private static void insert(SQLiteDatabase db, String city, String date, String fajr, String sunrise,
+                               String dhuhr, String asr, String maghrib, String isha) {
+        ContentValues values = new ContentValues();
+        values.put("city_name", city);
+        values.put("date", date);
+        values.put("fajr", fajr);
+        values.put("sunrise", sunrise);
+        values.put("dhuhr", dhuhr);
+        values.put("asr", asr);
+        values.put("maghrib", maghrib);
+        values.put("isha", isha);
+        values.put("last_updated", 0L);
+        assertTrue(db.insert("prayer_times", null, values) > 0);
+    }
+
+    private static void assertRow(short[] times, int day, int... expected) {
+        assertNotNull(times);
+        int[] slots = {MonthTimetable.FAJR, MonthTimetable.SUNRISE, MonthTimetable.DHUHR,
+            MonthTimetable.ASR, MonthTimetable.MAGHRIB, MonthTimetable.ISHA};
+        for (int i = 0; i < slots.length; i++) {
+            assertEquals("day " + day + " slot " + slots[i], expected[i], times[day * MonthTimetable.SLOTS + slots[i]]);
+        }
+    }
+
+    private static int count(SQLiteDatabase db, String sql) {
+        try (Cursor cursor = db.rawQuery(sql, null)) {
+            cursor.moveToFirst();
+            return cursor.getInt(0);
+        }
+    }
+}
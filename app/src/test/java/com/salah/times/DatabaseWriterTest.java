@@ -0,0 +1,110 @@
+package com.salah.times;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import android.database.Cursor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(RobolectricTestRunner.class)
+public class DatabaseWriterTest {
+    private DatabaseHelper helper;
+    private DatabaseWriter writer;
+
+    @Before
+    public void setUp() {
+        helper = DatabaseHelper.getInstance(RuntimeEnvironment.getApplication());
+        writer = new DatabaseWriter(helper);
+        helper.getWritableDatabase().execSQL("CREATE TABLE IF NOT EXISTS writer_test (value INTEGER)");
+    }
+
+    @After
+    public void tearDown() {
+        writer.shutdown();
+        DatabaseHelper.resetForTests();
+    }
+
+    // An Error thrown by one write must fail that write only; the thread keeps serving the queue
+    @Test
+    public void errorFailsItsWriteAndTheWriterKeepsRunning() throws Exception {
+        Error error = new StackOverflowError("write blew up");
+        CompletableFuture<Object> failed = writer.submit(db -> {
+            throw error;
+        });
+        assertSame(error, cause(failed));
+
+        CompletableFuture<Object> failedAlone = writer.submitOutsideTransaction(db -> {
+            throw new OutOfMemoryError("alone");
+        });
+        assertTrue(cause(failedAlone) instanceof OutOfMemoryError);
+
+        assertEquals(Integer.valueOf(1), writer.submit(db -> 1).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void errorInABatchLeavesTheOtherWritesCommitted() throws Exception {
+        List<CompletableFuture<Object>> writes = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            int value = i;
+            writes.add(writer.submit(db -> {
+                if (value == 7) throw new AssertionError("bad write");
+                db.execSQL("INSERT INTO writer_test (value) VALUES (" + value + ")");
+                return value;
+            }));
+        }
+
+        for (int i = 0; i < writes.size(); i++) {
+            if (i == 7) {
+                assertTrue(cause(writes.get(i)) instanceof AssertionError);
+            } else {
+                assertEquals(i, writes.get(i).get(5, TimeUnit.SECONDS));
+            }
+        }
+        try (Cursor cursor = helper.getReadableDatabase().rawQuery("SELECT COUNT(*) FROM writer_test", null)) {
+            cursor.moveToFirst();
+            assertEquals(19, cursor.getInt(0));
+        }
+    }
+
+    // A failing write submitted from inside another write fails the outer one, so its batch rolls back
+    @Test
+    public void nestedErrorFailsTheEnclosingWrite() throws Exception {
+        CompletableFuture<Object> outer = writer.submit(db -> {
+            db.execSQL("INSERT INTO writer_test (value) VALUES (1)");
+            writer.submit(nested -> {
+                throw new LinkageError("nested");
+            });
+            return null;
+        });
+
+        assertTrue(cause(outer) instanceof LinkageError);
+        assertEquals(Integer.valueOf(0), writer.submit(db -> {
+            try (Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM writer_test", null)) {
+                cursor.moveToFirst();
+                return cursor.getInt(0);
+            }
+        }).get(5, TimeUnit.SECONDS));
+    }
+
+    private static Throwable cause(CompletableFuture<?> future) throws Exception {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+        fail("write should have failed");
+        return null;
+    }
+}
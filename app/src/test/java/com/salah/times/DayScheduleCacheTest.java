@@ -0,0 +1,72 @@
+package com.salah.times;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(RobolectricTestRunner.class)
+public class DayScheduleCacheTest {
+    private City city;
+    private int today;
+
+    @Before
+    public void setUp() {
+        Context context = RuntimeEnvironment.getApplication();
+        DayScheduleCache.init(context);
+        Map<City, MonthTimetable> months = Timetables.months(1, 2);
+        city = months.keySet().iterator().next();
+        DatabaseHelper.getInstance(context).savePrayerTimesMonths(months).join();
+        today = EpochDays.today();
+        DayScheduleCache.invalidate();
+    }
+
+    @After
+    public void tearDown() {
+        DayScheduleCache.invalidate();
+        DatabaseHelper.resetForTests();
+    }
+
+    // The cache shares one instance and its parsed schedule between callers, so nothing
+    // may be able to change a PrayerTimes after it is built
+    @Test
+    public void sharedPrayerTimesCannotChange() {
+        assertTrue(Modifier.isFinal(PrayerTimes.class.getModifiers()));
+        for (Field field : PrayerTimes.class.getDeclaredFields()) {
+            assertTrue(field.getName(), Modifier.isFinal(field.getModifiers()));
+        }
+        for (Method method : PrayerTimes.class.getMethods()) {
+            assertFalse(method.getName(), method.getName().startsWith("set"));
+        }
+    }
+
+    @Test
+    public void hitsReturnTheStoredDay() {
+        PrayerTimes first = DayScheduleCache.get(city.getNameEn(), today);
+        PrayerTimes second = DayScheduleCache.get(city.getNameEn(), today);
+
+        assertSame(first, second);
+        assertSame(first.getSchedule(), second.getSchedule());
+        assertNull(DayScheduleCache.get(city.getNameEn(), today + 5));
+
+        PrayerTimes withChorok = first.withChorok("06:41");
+        assertNotSame(first, withChorok);
+        assertEquals("06:41", withChorok.getChorok());
+        assertEquals(first.getSunrise(), first.getChorok());
+        assertSame(first, DayScheduleCache.get(city.getNameEn(), today));
+    }
+}
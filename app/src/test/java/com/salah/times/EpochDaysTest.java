@@ -0,0 +1,75 @@
+package com.salah.times;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.LocalDate;
+import java.util.Calendar;
+import java.util.TimeZone;
+import org.junit.Test;
+
+public class EpochDaysTest {
+
+    @Test
+    public void matchesLocalDateAcrossCenturies() {
+        LocalDate date = LocalDate.of(1899, 12, 25);
+        LocalDate end = LocalDate.of(2101, 3, 5);
+        for (; date.isBefore(end); date = date.plusDays(1)) {
+            int expected = (int) date.toEpochDay();
+            assertEquals(date.toString(), expected, EpochDays.of(date.getYear(), date.getMonthValue(), date.getDayOfMonth()));
+            assertEquals(date.toString(), date.toString(), EpochDays.toIso(expected));
+            assertEquals(date.toString(), expected, EpochDays.parseIso(date.toString()));
+        }
+    }
+
+    @Test
+    public void leapDays() {
+        assertEquals(EpochDays.of(2024, 3, 1) - 1, EpochDays.of(2024, 2, 29));
+        assertEquals(EpochDays.of(2000, 3, 1) - 1, EpochDays.of(2000, 2, 29));
+        assertEquals(EpochDays.of(2100, 3, 1) - 1, EpochDays.of(2100, 2, 28));
+        assertEquals("2000-02-29", EpochDays.toIso(EpochDays.of(2000, 2, 29)));
+    }
+
+    @Test
+    public void parseIsoRejectsOtherShapes() {
+        assertEquals(0, EpochDays.parseIso("1970-01-01"));
+        assertEquals(-1, EpochDays.parseIso(null));
+        assertEquals(-1, EpochDays.parseIso(""));
+        assertEquals(-1, EpochDays.parseIso("2026-3-29"));
+        assertEquals(-1, EpochDays.parseIso("29/03/2026"));
+        assertEquals(-1, EpochDays.parseIso("2026-13-01"));
+        assertEquals(-1, EpochDays.parseIso("2026-00-10"));
+        assertEquals(-1, EpochDays.parseIso("2026-03-32"));
+        assertEquals(-1, EpochDays.parseIso("2026-ab-01"));
+    }
+
+    // A local day is 23 or 25 hours long across a DST change; stepping the calendar by a day
+    // must still step the epoch day by exactly one
+    @Test
+    public void calendarDaysStayConsecutiveAcrossDstChanges() {
+        for (String zone : new String[]{"Europe/Paris", "America/New_York", "Africa/Casablanca"}) {
+            Calendar day = Calendar.getInstance(TimeZone.getTimeZone(zone));
+            day.clear();
+            day.set(2026, Calendar.JANUARY, 1, 23, 30);
+            int previous = EpochDays.of(day);
+            assertEquals(zone, EpochDays.of(2026, 1, 1), previous);
+            for (int i = 0; i < 366; i++) {
+                day.add(Calendar.DAY_OF_MONTH, 1);
+                int current = EpochDays.of(day);
+                assertEquals(zone + " " + EpochDays.toIso(current), previous + 1, current);
+                previous = current;
+            }
+        }
+    }
+
+    @Test
+    public void parisSpringForward() {
+        Calendar before = Calendar.getInstance(TimeZone.getTimeZone("Europe/Paris"));
+        before.clear();
+        before.set(2026, Calendar.MARCH, 28, 0, 0);
+        Calendar after = (Calendar) before.clone();
+        after.add(Calendar.HOUR_OF_DAY, 47); // only 47 hours to 2026-03-30 00:00
+        assertEquals("2026-03-29", EpochDays.toIso(EpochDays.of(before) + 1));
+        assertEquals(EpochDays.of(before) + 2, EpochDays.of(after));
+        assertEquals(0, after.get(Calendar.HOUR_OF_DAY));
+    }
+}
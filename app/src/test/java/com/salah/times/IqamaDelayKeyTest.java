@@ -0,0 +1,62 @@
+package com.salah.times;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import android.content.Context;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+// Iqama delays are stored per AlarmSchedule.PRAYERS key; PrayerSchedule.NAMES are display
+// names ("Dohr", "Maghreb") and read back the default instead of the stored delay
+@RunWith(RobolectricTestRunner.class)
+public class IqamaDelayKeyTest {
+    private static final int[] DELAYS = {12, 15, 20, 5, 25};
+
+    @Before
+    public void setUp() {
+        Context context = RuntimeEnvironment.getApplication();
+        SettingsManager.init(context);
+        DatabaseHelper db = DatabaseHelper.getInstance(context);
+        // The keys SalahApplication seeds on first run
+        String[] seeded = {"fajr", "dhuhr", "asr", "maghrib", "isha"};
+        for (int i = 0; i < seeded.length; i++) {
+            db.setIqamaDelay(seeded[i], DELAYS[i]);
+        }
+        db.flush();
+        SettingsManager.reload();
+    }
+
+    @After
+    public void tearDown() {
+        SettingsManager.reload();
+        DatabaseHelper.resetForTests();
+    }
+
+    @Test
+    public void timelinePrayerIndexesReadTheStoredDelays() {
+        assertArrayEquals(new String[]{"fajr", "dhuhr", "asr", "maghrib", "isha"}, AlarmSchedule.PRAYERS);
+        assertEquals(PrayerSchedule.COUNT, AlarmSchedule.PRAYERS.length);
+        for (int prayer = 0; prayer < PrayerSchedule.COUNT; prayer++) {
+            assertEquals(PrayerSchedule.NAMES[prayer], DELAYS[prayer], SettingsManager.getIqamaDelay(AlarmSchedule.PRAYERS[prayer]));
+        }
+    }
+
+    @Test
+    public void settingsDialogNamesMatchTheStoredKeys() {
+        String[] dialog = {"Fajr", "Dhuhr", "Asr", "Maghrib", "Isha"};
+        for (int prayer = 0; prayer < dialog.length; prayer++) {
+            assertEquals(dialog[prayer], DELAYS[prayer], SettingsManager.getIqamaDelay(dialog[prayer]));
+        }
+    }
+
+    @Test
+    public void displayNamesAreNotDelayKeys() {
+        assertEquals(10, SettingsManager.getIqamaDelay(PrayerSchedule.NAMES[1]));
+        assertEquals(10, SettingsManager.getIqamaDelay(PrayerSchedule.NAMES[3]));
+    }
+}
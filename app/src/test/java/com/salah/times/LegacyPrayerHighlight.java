@@ -0,0 +1,72 @@
+package com.salah.times;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Locale;
+
+// PrayerHighlightManager's logic before PrayerSchedule, kept as the reference the schedule is
+// checked and benchmarked against. Takes the minute of the day instead of reading the clock.
+final class LegacyPrayerHighlight {
+    private static final String[] PRAYER_ORDER = {"Fajr", "Dohr", "Asr", "Maghreb", "Isha"};
+
+    private LegacyPrayerHighlight() {}
+
+    static String getCurrentPrayer(PrayerTimes prayerTimes, int currentMinutes) {
+        String[] times = times(prayerTimes);
+        for (int i = 0; i < PRAYER_ORDER.length; i++) {
+            int prayerMinutes = parseTimeToMinutes(times[i]);
+            int nextPrayerMinutes = i < PRAYER_ORDER.length - 1 ? parseTimeToMinutes(times[i + 1]) : 24 * 60;
+            if (prayerMinutes <= currentMinutes && currentMinutes < nextPrayerMinutes) {
+                return PRAYER_ORDER[i];
+            }
+        }
+        return null;
+    }
+
+    static String getNextPrayer(PrayerTimes prayerTimes, int currentMinutes) {
+        String[] times = times(prayerTimes);
+        for (int i = 0; i < PRAYER_ORDER.length; i++) {
+            if (currentMinutes < parseTimeToMinutes(times[i])) {
+                return PRAYER_ORDER[i];
+            }
+        }
+        return "Fajr";
+    }
+
+    static long getTimeUntilNextPrayer(PrayerTimes prayerTimes, int currentMinutes) {
+        String[] times = times(prayerTimes);
+        for (int i = 0; i < PRAYER_ORDER.length; i++) {
+            int prayerMinutes = parseTimeToMinutes(times[i]);
+            if (currentMinutes < prayerMinutes) {
+                return (prayerMinutes - currentMinutes) * 60 * 1000;
+            }
+        }
+        int fajrMinutes = parseTimeToMinutes(prayerTimes.getFajr());
+        return ((24 * 60) - currentMinutes + fajrMinutes) * 60 * 1000;
+    }
+
+    static int currentMinutes() {
+        Calendar now = Calendar.getInstance();
+        return now.get(Calendar.HOUR_OF_DAY) * 60 + now.get(Calendar.MINUTE);
+    }
+
+    private static String[] times(PrayerTimes prayerTimes) {
+        return new String[]{
+            prayerTimes.getFajr(), prayerTimes.getDhuhr(), prayerTimes.getAsr(), prayerTimes.getMaghrib(), prayerTimes.getIsha()
+        };
+    }
+
+    private static int parseTimeToMinutes(String timeStr) {
+        try {
+            SimpleDateFormat format = new SimpleDateFormat("HH:mm", Locale.getDefault());
+            Date time = format.parse(timeStr);
+            Calendar cal = Calendar.getInstance();
+            cal.setTime(time);
+            return cal.get(Calendar.HOUR_OF_DAY) * 60 + cal.get(Calendar.MINUTE);
+        } catch (ParseException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.salah.times;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import android.content.ContentValues;
+import android.database.sqlite.SQLiteDatabase;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(RobolectricTestRunner.class)
+public class LoadRangeTest {
+    private static final int DAYS = 30;
+
+    private DatabaseHelper helper;
+
+    @Before
+    public void setUp() {
+        helper = DatabaseHelper.getInstance(RuntimeEnvironment.getApplication());
+    }
+
+    @After
+    public void tearDown() {
+        DatabaseHelper.resetForTests();
+    }
+
+    @Test
+    public void missingDaysAndNullColumnsAreUnknown() {
+        City city = CitiesData.getAllCities().get(0);
+        int day = EpochDays.of(2026, 3, 29);
+        insert(city.getId(), day, 5 * 60 + 7, null, 13 * 60 + 31);
+        insert(city.getId(), day + 2, 0, 6 * 60 + 40, null);
+        helper.flush();
+
+        short[] times = helper.loadRange(city.getId(), day, day + 2);
+
+        assertEquals(3 * MonthTimetable.SLOTS, times.length);
+        assertEquals(5 * 60 + 7, times[MonthTimetable.FAJR]);
+        assertEquals(MonthTimetable.UNKNOWN, times[MonthTimetable.SUNRISE]);
+        assertEquals(13 * 60 + 31, times[MonthTimetable.DHUHR]);
+        assertEquals(MonthTimetable.UNKNOWN, times[MonthTimetable.ASR]);
+        for (int slot = 0; slot < MonthTimetable.SLOTS; slot++) {
+            assertEquals("missing day slot " + slot, MonthTimetable.UNKNOWN, times[MonthTimetable.SLOTS + slot]);
+        }
+        // Midnight is a time, not a missing one
+        assertEquals(0, times[2 * MonthTimetable.SLOTS + MonthTimetable.FAJR]);
+        assertEquals(6 * 60 + 40, times[2 * MonthTimetable.SLOTS + MonthTimetable.SUNRISE]);
+        assertEquals(MonthTimetable.UNKNOWN, times[2 * MonthTimetable.SLOTS + MonthTimetable.DHUHR]);
+
+        // Other cities and days outside the range don't leak in
+        assertEquals(MonthTimetable.UNKNOWN, helper.loadRange(CitiesData.getAllCities().get(1).getId(), day, day)[MonthTimetable.FAJR]);
+        assertEquals(0, helper.loadRange(city.getId(), day + 1, day).length);
+    }
+
+    @Test
+    public void reusesABufferThatIsLargeEnough() {
+        City city = CitiesData.getAllCities().get(0);
+        int day = EpochDays.of(2026, 3, 29);
+        insert(city.getId(), day, 5 * 60, null, 13 * 60);
+        helper.flush();
+
+        short[] buffer = helper.loadRange(city.getId(), day - 6, day);
+        assertEquals(7 * MonthTimetable.SLOTS, buffer.length);
+        assertEquals(5 * 60, buffer[6 * MonthTimetable.SLOTS + MonthTimetable.FAJR]);
+
+        // A shorter range refills the front of the same array and clears what the last call wrote
+        short[] reused = helper.loadRange(city.getId(), day - 1, day - 1, buffer);
+        assertSame(buffer, reused);
+        for (int slot = 0; slot < MonthTimetable.SLOTS; slot++) {
+            assertEquals(MonthTimetable.UNKNOWN, reused[slot]);
+        }
+        assertSame(buffer, helper.loadRange(city.getId(), day - 6, day, buffer));
+        assertEquals(5 * 60, buffer[6 * MonthTimetable.SLOTS + MonthTimetable.FAJR]);
+
+        short[] grown = helper.loadRange(city.getId(), day - 7, day, buffer);
+        assertNotSame(buffer, grown);
+        assertEquals(8 * MonthTimetable.SLOTS, grown.length);
+        assertEquals(5 * 60, grown[7 * MonthTimetable.SLOTS + MonthTimetable.FAJR]);
+    }
+
+    // One loadRange query answers what a loadPrayerTimes query per day did
+    @Test
+    public void rangeMatchesDayByDay() {
+        Map<City, MonthTimetable> months = Timetables.months(1, DAYS);
+        City city = months.keySet().iterator().next();
+        helper.savePrayerTimesMonths(months).join();
+        int today = EpochDays.today();
+
+        short[] range = helper.loadRange(city.getId(), today, today + DAYS - 1);
+
+        for (int d = 0; d < DAYS; d++) {
+            PrayerTimes day = helper.loadPrayerTimes(city.getId(), today + d);
+            assertNotNull(day);
+            assertEquals(day.getFajr(), MonthTimetable.formatMinutes(range[d * MonthTimetable.SLOTS + MonthTimetable.FAJR]));
+            assertEquals(day.getIsha(), MonthTimetable.formatMinutes(range[d * MonthTimetable.SLOTS + MonthTimetable.ISHA]));
+        }
+    }
+
+    private void insert(int cityId, int epochDay, Integer fajr, Integer sunrise, Integer dhuhr) {
+        ContentValues values = new ContentValues();
+        values.put("city_id", cityId);
+        values.put("epoch_day", epochDay);
+        values.put("fajr", fajr);
+        values.put("sunrise", sunrise);
+        values.put("dhuhr", dhuhr);
+        values.putNull("asr");
+        values.putNull("maghrib");
+        values.putNull("isha");
+        values.put("last_updated", 0L);
+        helper.getWritableDatabase().insertWithOnConflict("prayer_times", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+}
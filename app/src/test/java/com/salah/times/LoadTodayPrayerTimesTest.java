@@ -0,0 +1,52 @@
+package com.salah.times;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+
+import android.content.Context;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+// loadCityData and fetchPrayerTimes used to wrap the cached day in JSON and parse it back on
+// every call; a hit now hands out the cached PrayerTimes itself, so there is nothing to allocate
+@RunWith(RobolectricTestRunner.class)
+public class LoadTodayPrayerTimesTest {
+    private static final int CALLS = 1000;
+
+    private String cityName;
+
+    @Before
+    public void setUp() {
+        Context context = RuntimeEnvironment.getApplication();
+        StorageManager.init(context);
+        DayScheduleCache.init(context);
+        Map<City, MonthTimetable> months = Timetables.months(1, 1);
+        cityName = months.keySet().iterator().next().getNameEn();
+        StorageManager.saveMonths(months);
+        DayScheduleCache.invalidate();
+    }
+
+    @After
+    public void tearDown() {
+        DayScheduleCache.invalidate();
+        DatabaseHelper.resetForTests();
+    }
+
+    @Test
+    public void hitsReturnTheCachedInstance() {
+        PrayerTimes first = StorageManager.loadTodayPrayerTimes(cityName);
+        assertNotNull(first);
+        long misses = DayScheduleCache.getMisses();
+
+        for (int i = 0; i < CALLS; i++) {
+            assertSame(first, StorageManager.loadTodayPrayerTimes(cityName));
+        }
+        assertEquals(misses, DayScheduleCache.getMisses());
+    }
+}
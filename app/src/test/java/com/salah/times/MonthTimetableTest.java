@@ -0,0 +1,67 @@
+package com.salah.times;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import org.junit.Test;
+
+public class MonthTimetableTest {
+
+    @Test
+    public void parseMinutesAcceptsOneOrTwoDigitHours() {
+        assertEquals(5 * 60 + 7, MonthTimetable.parseMinutes("5:07"));
+        assertEquals(5 * 60 + 7, MonthTimetable.parseMinutes("05:07"));
+        assertEquals(0, MonthTimetable.parseMinutes("00:00"));
+        assertEquals(0, MonthTimetable.parseMinutes("0:00"));
+        assertEquals(13 * 60 + 20, MonthTimetable.parseMinutes("13:20"));
+        assertEquals(23 * 60 + 59, MonthTimetable.parseMinutes("23:59"));
+    }
+
+    @Test
+    public void parseMinutesRejectsEverythingElse() {
+        String[] invalid = {null, "", ":", "5", "5:7", "5:070", "005:07", "24:00", "12:60", "ab:cd", "1a:00", " 5:07", "5:07 ", "-1:00", "5.07"};
+        for (String time : invalid) {
+            assertEquals(String.valueOf(time), MonthTimetable.UNKNOWN, MonthTimetable.parseMinutes(time));
+        }
+    }
+
+    @Test
+    public void formatMinutesRoundTrips() {
+        assertEquals("00:00", MonthTimetable.formatMinutes(0));
+        assertEquals("05:07", MonthTimetable.formatMinutes(5 * 60 + 7));
+        assertEquals("23:59", MonthTimetable.formatMinutes(23 * 60 + 59));
+        for (int minutes = 0; minutes < 24 * 60; minutes++) {
+            assertEquals(minutes, MonthTimetable.parseMinutes(MonthTimetable.formatMinutes(minutes)));
+        }
+    }
+
+    @Test
+    public void rowsDecodeToMinutesWithUnknownSunrise() {
+        MonthTimetable month = MonthTimetable.fromRows(Arrays.asList(
+            new TimetableRow("29/03", "5:07", "13:31", "16:58", "19:49", "21:05"),
+            new TimetableRow("30/03", "05:05", "13:30", "--", "19:50", "21:06")));
+
+        assertEquals(2, month.size());
+        assertEquals(5 * 60 + 7, month.getMinutes(0, MonthTimetable.FAJR));
+        assertEquals(MonthTimetable.UNKNOWN, month.getMinutes(0, MonthTimetable.SUNRISE));
+        assertEquals(MonthTimetable.UNKNOWN, month.getMinutes(1, MonthTimetable.ASR));
+        assertEquals(21 * 60 + 6, month.getMinutes(1, MonthTimetable.ISHA));
+    }
+
+    // The page only shows dd/MM; the year comes from the nearest match to today
+    @Test
+    public void epochDayTakesTheYearNearestToday() {
+        MonthTimetable month = MonthTimetable.fromRows(Arrays.asList(
+            new TimetableRow("31/12", "6:50", "13:30", "16:00", "18:20", "19:45"),
+            new TimetableRow("01/01", "6:50", "13:31", "16:01", "18:21", "19:46"),
+            new TimetableRow("29/03", "5:07", "13:31", "16:58", "19:49", "21:05")));
+        Calendar today = Calendar.getInstance();
+        today.clear();
+        today.set(2026, Calendar.JANUARY, 2);
+
+        assertEquals(EpochDays.of(2025, 12, 31), month.getEpochDay(0, today));
+        assertEquals(EpochDays.of(2026, 1, 1), month.getEpochDay(1, today));
+        assertEquals(EpochDays.of(2026, 3, 29), month.getEpochDay(2, today));
+    }
+}
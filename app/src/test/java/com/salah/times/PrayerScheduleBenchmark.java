@@ -0,0 +1,49 @@
+package com.salah.times;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// One UI tick: current prayer, next prayer and time left, as the SimpleDateFormat parse did it
+// and as PrayerSchedule does it. Run main() from the IDE, adding "-prof gc" for bytes per tick.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrayerScheduleBenchmark {
+    private final PrayerTimes times = new PrayerTimes("18/10", "06:27", "00:00", "13:19", "16:33", "19:01", "20:20");
+
+    @Benchmark
+    public void legacyTick(Blackhole bh) {
+        int now = LegacyPrayerHighlight.currentMinutes();
+        bh.consume(LegacyPrayerHighlight.getCurrentPrayer(times, now));
+        bh.consume(LegacyPrayerHighlight.getNextPrayer(times, now));
+        bh.consume(LegacyPrayerHighlight.getTimeUntilNextPrayer(times, now));
+    }
+
+    @Benchmark
+    public void scheduleTick(Blackhole bh) {
+        bh.consume(PrayerHighlightManager.getCurrentPrayer(times));
+        bh.consume(PrayerHighlightManager.getNextPrayer(times));
+        bh.consume(PrayerHighlightManager.getTimeUntilNextPrayer(times));
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+            .include(PrayerScheduleBenchmark.class.getSimpleName())
+            .addProfiler("gc")
+            .build()).run();
+    }
+}
@@ -0,0 +1,80 @@
+package com.salah.times;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.TimeZone;
+import org.junit.Test;
+
+public class PrayerScheduleTest {
+    private static final int FAJR = 6 * 60 + 27;
+    private static final int DHUHR = 13 * 60 + 19;
+    private static final int ISHA = 20 * 60 + 20;
+
+    private final PrayerTimes times = new PrayerTimes("18/10", "06:27", "00:00", "13:19", "16:33", "19:01", "20:20");
+    private final PrayerSchedule schedule = times.getSchedule();
+
+    @Test
+    public void beforeFajrNothingIsCurrentAndFajrIsNext() {
+        assertEquals(-1, schedule.currentIndex(0));
+        assertEquals(-1, schedule.currentIndex(FAJR - 1));
+        assertNull(schedule.getCurrentPrayer(FAJR - 1));
+        assertEquals(0, schedule.nextIndex(0));
+        assertEquals(FAJR, schedule.minutesUntilNext(0));
+        assertEquals(1, schedule.minutesUntilNext(FAJR - 1));
+    }
+
+    @Test
+    public void aPrayerStartsOnItsOwnMinute() {
+        assertEquals(0, schedule.currentIndex(FAJR));
+        assertEquals(1, schedule.nextIndex(FAJR));
+        assertEquals(DHUHR - FAJR, schedule.minutesUntilNext(FAJR));
+
+        assertEquals(0, schedule.currentIndex(DHUHR - 1));
+        assertEquals(1, schedule.minutesUntilNext(DHUHR - 1));
+        assertEquals(1, schedule.currentIndex(DHUHR));
+        assertEquals("Dohr", schedule.getCurrentPrayer(DHUHR));
+        assertEquals("Asr", schedule.getNextPrayer(DHUHR));
+    }
+
+    @Test
+    public void afterIshaTheNextIsTomorrowsFajr() {
+        assertEquals(4, schedule.currentIndex(ISHA));
+        assertEquals(0, schedule.nextIndex(ISHA));
+        assertEquals("Fajr", schedule.getNextPrayer(ISHA));
+        assertEquals(24 * 60 - ISHA + FAJR, schedule.minutesUntilNext(ISHA));
+        assertEquals(4, schedule.currentIndex(24 * 60 - 1));
+        assertEquals(FAJR + 1, schedule.minutesUntilNext(24 * 60 - 1));
+    }
+
+    // Every minute of the day answers what the SimpleDateFormat version did
+    @Test
+    public void matchesTheLegacyHighlightAllDay() {
+        for (int now = 0; now < 24 * 60; now++) {
+            assertEquals("current at " + now, LegacyPrayerHighlight.getCurrentPrayer(times, now), schedule.getCurrentPrayer(now));
+            assertEquals("next at " + now, LegacyPrayerHighlight.getNextPrayer(times, now), schedule.getNextPrayer(now));
+            assertEquals("left at " + now, LegacyPrayerHighlight.getTimeUntilNextPrayer(times, now), schedule.minutesUntilNext(now) * 60 * 1000L);
+        }
+    }
+
+    @Test
+    public void reusesTheParseForTheSameTimes() {
+        assertSame(schedule, times.getSchedule());
+        assertEquals(FAJR, schedule.getMinutes(0));
+    }
+
+    @Test
+    public void minuteOfDayUsesTheZoneItWasBuiltIn() {
+        TimeZone saved = TimeZone.getDefault();
+        try {
+            TimeZone.setDefault(TimeZone.getTimeZone("Africa/Casablanca"));
+            PrayerSchedule casablanca = new PrayerTimes("18/10", "06:27", "00:00", "13:19", "16:33", "19:01", "20:20").getSchedule();
+            // 2026-10-18 12:30 UTC, 13:30 in Casablanca (UTC+1)
+            long instant = EpochDays.of(2026, 10, 18) * 86400000L + (12 * 60 + 30) * 60000L;
+            assertEquals(13 * 60 + 30, casablanca.minuteOfDay(instant));
+        } finally {
+            TimeZone.setDefault(saved);
+        }
+    }
+}
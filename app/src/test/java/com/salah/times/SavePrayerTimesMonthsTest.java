@@ -0,0 +1,84 @@
+package com.salah.times;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import android.content.ContentValues;
+import android.database.sqlite.SQLiteDatabase;
+import java.util.Calendar;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+// savePrayerTimesMonths writes a refresh's worth of months in one transaction with a compiled
+// statement; the rows have to come out as saveFullMonthData's insert per row left them
+@RunWith(RobolectricTestRunner.class)
+public class SavePrayerTimesMonthsTest {
+    private static final int CITIES = 43;
+    private static final int DAYS = 30;
+
+    private DatabaseHelper helper;
+
+    @Before
+    public void setUp() {
+        helper = DatabaseHelper.getInstance(RuntimeEnvironment.getApplication());
+    }
+
+    @After
+    public void tearDown() {
+        DatabaseHelper.resetForTests();
+    }
+
+    @Test
+    public void monthBatchMatchesRowByRow() {
+        Map<City, MonthTimetable> months = Timetables.months(CITIES, DAYS);
+        int today = EpochDays.today();
+
+        assertEquals(CITIES * DAYS, saveRowByRow(months));
+        short[][] expected = new short[CITIES][];
+        int i = 0;
+        for (City city : months.keySet()) {
+            expected[i++] = helper.loadRange(city.getId(), today, today + DAYS - 1);
+        }
+
+        clear();
+        assertEquals(CITIES * DAYS, (int) helper.savePrayerTimesMonths(months).join());
+        i = 0;
+        for (City city : months.keySet()) {
+            assertArrayEquals(expected[i++], helper.loadRange(city.getId(), today, today + DAYS - 1));
+        }
+    }
+
+    private int saveRowByRow(Map<City, MonthTimetable> months) {
+        SQLiteDatabase db = helper.getWritableDatabase();
+        Calendar now = Calendar.getInstance();
+        int rows = 0;
+        for (Map.Entry<City, MonthTimetable> month : months.entrySet()) {
+            MonthTimetable timetable = month.getValue();
+            for (int day = 0; day < timetable.size(); day++) {
+                ContentValues values = new ContentValues();
+                values.put("city_id", month.getKey().getId());
+                values.put("epoch_day", timetable.getEpochDay(day, now));
+                values.put("fajr", timetable.getMinutes(day, MonthTimetable.FAJR));
+                values.putNull("sunrise");
+                values.put("dhuhr", timetable.getMinutes(day, MonthTimetable.DHUHR));
+                values.put("asr", timetable.getMinutes(day, MonthTimetable.ASR));
+                values.put("maghrib", timetable.getMinutes(day, MonthTimetable.MAGHRIB));
+                values.put("isha", timetable.getMinutes(day, MonthTimetable.ISHA));
+                values.put("last_updated", System.currentTimeMillis());
+                db.insertWithOnConflict("prayer_times", null, values, SQLiteDatabase.CONFLICT_REPLACE);
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    private void clear() {
+        helper.flush();
+        helper.getWritableDatabase().execSQL("DELETE FROM prayer_times");
+    }
+}
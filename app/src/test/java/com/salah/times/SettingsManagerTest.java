@@ -0,0 +1,55 @@
+package com.salah.times;
+
+import static org.junit.Assert.assertEquals;
+
+import android.content.Context;
+import java.util.concurrent.CountDownLatch;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(RobolectricTestRunner.class)
+public class SettingsManagerTest {
+    private DatabaseHelper db;
+
+    @Before
+    public void setUp() {
+        Context context = RuntimeEnvironment.getApplication();
+        SettingsManager.init(context);
+        SettingsManager.reload();
+        db = DatabaseHelper.getInstance(context);
+    }
+
+    @After
+    public void tearDown() {
+        SettingsManager.reload();
+        DatabaseHelper.resetForTests();
+    }
+
+    // First-run seeding relies on this: no flush is needed before the values can be read
+    @Test
+    public void writesAreReadableBeforeTheWriterStoresThem() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        db.getWriter().submit(database -> {
+            try {
+                blocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        });
+
+        SettingsManager.setDefaultCity("Rabat");
+        SettingsManager.setIqamaDelay("maghrib", 5);
+        assertEquals("Rabat", SettingsManager.getDefaultCity());
+        assertEquals(5, SettingsManager.getIqamaDelay("maghrib"));
+
+        blocked.countDown();
+        db.flush();
+        assertEquals("Rabat", db.getSetting("default_city", null));
+        assertEquals(5, db.getIqamaDelay("maghrib", 10));
+    }
+}
@@ -0,0 +1,95 @@
+package com.salah.times;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.jsoup.Jsoup;
+import org.junit.Test;
+
+public class TimetableExtractorTest {
+    private static final String URL = "https://www.yabiladi.com/prieres/details/66/city.html";
+
+    private static byte[] readPage() throws Exception {
+        try (InputStream in = TimetableExtractorTest.class.getClassLoader().getResourceAsStream("yabiladi_prayer_page.html")) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            for (int n; (n = in.read(buffer)) > 0; ) out.write(buffer, 0, n);
+            return out.toByteArray();
+        }
+    }
+
+    private static void assertSameRows(List<TimetableRow> expected, List<TimetableRow> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            TimetableRow e = expected.get(i);
+            TimetableRow a = actual.get(i);
+            assertEquals("date of row " + i, e.getDate(), a.getDate());
+            assertEquals("fajr of row " + i, e.getFajr(), a.getFajr());
+            assertEquals("dhuhr of row " + i, e.getDhuhr(), a.getDhuhr());
+            assertEquals("asr of row " + i, e.getAsr(), a.getAsr());
+            assertEquals("maghrib of row " + i, e.getMaghrib(), a.getMaghrib());
+            assertEquals("isha of row " + i, e.getIsha(), a.getIsha());
+        }
+    }
+
+    @Test
+    public void scannerMatchesDomOnRecordedPage() throws Exception {
+        String html = TimetableExtractor.decode(readPage(), null);
+        List<TimetableRow> scanned = TimetableExtractor.extract(html);
+        List<TimetableRow> dom = TimetableExtractor.extract(Jsoup.parse(html, URL));
+
+        assertFalse(scanned.isEmpty());
+        assertSameRows(dom, scanned);
+    }
+
+    @Test
+    public void skipsScriptsCommentsAndHeaderRows() throws Exception {
+        List<TimetableRow> rows = TimetableExtractor.extract(TimetableExtractor.decode(readPage(), null));
+
+        assertEquals(31, rows.size());
+        assertEquals("01/10", rows.get(0).getDate());
+        assertEquals("31/10", rows.get(30).getDate());
+        // Markup and &nbsp; around the cell text are dropped
+        assertEquals("07/10", rows.get(6).getDate());
+        assertEquals("19:05", rows.get(6).getMaghrib());
+        assertEquals("20:25", rows.get(6).getIsha());
+    }
+
+    @Test
+    public void decodeUsesMetaCharsetWithoutContentTypeCharset() {
+        String page = "<html><head><meta http-equiv=\"Content-Type\" content=\"text/html; charset=windows-1252\"></head>"
+            + "<body><table><tr><td>01/10</td><td>06:25</td><td>13:20</td><td>16:38</td><td>19:11</td><td>20:31</td><td>Kénitra</td></tr></table></body></html>";
+        byte[] body = page.getBytes(Charset.forName("windows-1252"));
+
+        String decoded = TimetableExtractor.decode(body, null);
+
+        assertEquals(page, decoded);
+        assertSameRows(TimetableExtractor.extract(Jsoup.parse(decoded, URL)), TimetableExtractor.extract(decoded));
+    }
+
+    @Test
+    public void decodePrefersContentTypeCharset() {
+        String page = "<meta charset=\"windows-1252\"><p>prière</p>";
+        byte[] body = page.getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(page, TimetableExtractor.decode(body, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void decodeStripsUtf8BomAndDefaultsToUtf8() {
+        byte[] text = "<p>الدار البيضاء</p>".getBytes(StandardCharsets.UTF_8);
+        byte[] withBom = new byte[text.length + 3];
+        withBom[0] = (byte) 0xef;
+        withBom[1] = (byte) 0xbb;
+        withBom[2] = (byte) 0xbf;
+        System.arraycopy(text, 0, withBom, 3, text.length);
+
+        assertEquals("<p>الدار البيضاء</p>", TimetableExtractor.decode(withBom, null));
+        assertEquals("<p>الدار البيضاء</p>", TimetableExtractor.decode(text, null));
+    }
+}
@@ -0,0 +1,41 @@
+package com.salah.times;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Page-shaped timetables for tests and benchmarks: consecutive dd/MM rows with plausible times
+final class Timetables {
+    private Timetables() {}
+
+    static MonthTimetable month(Calendar first, int days, int seed) {
+        List<TimetableRow> rows = new ArrayList<>();
+        Calendar day = (Calendar) first.clone();
+        for (int i = 0; i < days; i++) {
+            int shift = (seed + i) % 20;
+            rows.add(new TimetableRow(
+                String.format(Locale.US, "%02d/%02d", day.get(Calendar.DAY_OF_MONTH), day.get(Calendar.MONTH) + 1),
+                clock(5 * 60 + 30 + shift), clock(13 * 60 + 15 + shift / 4), clock(16 * 60 + 40 - shift),
+                clock(19 * 60 + 5 - shift), clock(20 * 60 + 30 - shift)));
+            day.add(Calendar.DAY_OF_MONTH, 1);
+        }
+        return MonthTimetable.fromRows(rows);
+    }
+
+    // The first n cities, each with days rows starting today
+    static Map<City, MonthTimetable> months(int cities, int days) {
+        Map<City, MonthTimetable> months = new LinkedHashMap<>();
+        List<City> all = CitiesData.getAllCities();
+        for (int i = 0; i < cities && i < all.size(); i++) {
+            months.put(all.get(i), month(Calendar.getInstance(), days, all.get(i).getId()));
+        }
+        return months;
+    }
+
+    static String clock(int minutes) {
+        return MonthTimetable.formatMinutes(minutes);
+    }
+}